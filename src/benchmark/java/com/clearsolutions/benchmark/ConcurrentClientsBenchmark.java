@@ -0,0 +1,158 @@
+package com.clearsolutions.benchmark;
+
+import com.clearsolutions.UserServiceApplication;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the latency percentiles and the throughput of the search and create endpoints under
+ * 1024 concurrent HTTP clients, with requests handled by the Tomcat thread pool or by virtual threads.
+ * Virtual threads are only used on Java 21, on older runtimes both modes run on the thread pool.
+ * Every benchmark thread is a client of its own with a rate limit it cannot exhaust. The concurrency limits
+ * stay as configured, the requests they shed with 429 or 503 are counted apart from the served ones.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(1024)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConcurrentClientsBenchmark {
+
+  private static final int ROWS = 100_000;
+  private static final int PAGE_SIZE = 20;
+  private static final int BIRTHDATE_SPREAD_IN_DAYS = 25_000;
+  private static final int MINIMAL_AGE_IN_DAYS = 6_600;
+  private static final String SEED_USERS = """
+      INSERT INTO users(id, email, first_name, last_name, birthdate)
+      SELECT RANDOM_UUID(), CONCAT('user', X, '@bench'), CONCAT('First', X), CONCAT('Last', X),
+             DATEADD(DAY, -(MOD(X * 7919, ?) + ?), CURRENT_DATE)
+      FROM SYSTEM_RANGE(1, ?)
+      """;
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final int SERVICE_UNAVAILABLE = 503;
+  private static final String CLIENT_KEY_HEADER = "X-Client-Id";
+  private static final String NEW_USER = """
+      {"email":"client%d@bench","firstName":"First","lastName":"Last","birthdate":"1990-01-01"}""";
+
+  @Param({"false", "true"})
+  private boolean virtualThreads;
+
+  private ConfigurableApplicationContext context;
+  private HttpClient httpClient;
+  private URI usersUri;
+  private final AtomicLong userNumber = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SpringApplicationBuilder application = new SpringApplicationBuilder(UserServiceApplication.class);
+
+    if (virtualThreads) {
+      application.profiles("virtual-threads");
+    }
+    // arguments rather than default properties, which application.yaml would override
+    context = application.run(
+        "--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:concurrent-clients-benchmark;DB_CLOSE_DELAY=-1",
+        "--spring.jpa.show-sql=false",
+        "--spring.cache.type=none",
+        "--logging.level.root=WARN",
+        "--application.client-key-header=" + CLIENT_KEY_HEADER,
+        "--application.client-request-rate=1000000",
+        "--application.client-request-burst=1000000");
+    context.getBean(JdbcTemplate.class)
+        .update(SEED_USERS, BIRTHDATE_SPREAD_IN_DAYS, MINIMAL_AGE_IN_DAYS, ROWS);
+
+    httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .build();
+    usersUri = URI.create("http://localhost:%s/v1/users"
+                              .formatted(context.getEnvironment().getProperty("local.server.port")));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Client {
+
+    private final String id = UUID.randomUUID().toString();
+    public long served;
+    public long rejected;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      served = 0;
+      rejected = 0;
+    }
+  }
+
+  @Benchmark
+  public int searchUsers(Client client) throws IOException, InterruptedException {
+    int pageNumber = ThreadLocalRandom.current().nextInt(ROWS / PAGE_SIZE);
+    URI pageUri = URI.create("%s?page=%d&size=%d".formatted(usersUri, pageNumber, PAGE_SIZE));
+    HttpRequest request = HttpRequest.newBuilder(pageUri)
+        .header(CLIENT_KEY_HEADER, client.id)
+        .GET()
+        .build();
+    return send(request, client);
+  }
+
+  @Benchmark
+  public int createUser(Client client) throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(usersUri)
+        .header(CLIENT_KEY_HEADER, client.id)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(NEW_USER.formatted(userNumber.incrementAndGet())))
+        .build();
+    return send(request, client);
+  }
+
+  private int send(HttpRequest request, Client client) throws IOException, InterruptedException {
+    HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+
+    if (response.statusCode() == TOO_MANY_REQUESTS || response.statusCode() == SERVICE_UNAVAILABLE) {
+      client.rejected++;
+      return response.statusCode();
+    }
+
+    if (response.statusCode() >= 400) {
+      throw new IllegalStateException("%s %s responded %d".formatted(request.method(), request.uri(),
+                                                                     response.statusCode()));
+    }
+    client.served++;
+    return response.statusCode();
+  }
+}
@@ -0,0 +1,124 @@
+package com.clearsolutions.benchmark;
+
+import com.clearsolutions.repository.entity.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares batch insert throughput and the disk space of the users table with the former
+ * varchar(36) random UUID primary key, a native random UUID key and a native time-ordered UUID key.
+ * The table keeps growing during the trial, so the cost of index maintenance is included.
+ * The disk space used by the table with its indexes is printed at the end of the trial.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InsertUsersBenchmark {
+
+  private static final int BATCH_SIZE = 500;
+  private static final String CREATE_TABLE = """
+      CREATE TABLE users (
+        id %s PRIMARY KEY,
+        email VARCHAR(256) NOT NULL UNIQUE,
+        first_name VARCHAR(256) NOT NULL,
+        last_name VARCHAR(256) NOT NULL,
+        birthdate DATE NOT NULL
+      )
+      """;
+  private static final String INSERT_USER =
+      "INSERT INTO users(id, email, first_name, last_name, birthdate) VALUES (?, ?, ?, ?, ?)";
+  private static final String DISK_SPACE_USED = "CALL DISK_SPACE_USED('USERS')";
+
+  public enum IdLayout {
+    VARCHAR_RANDOM("VARCHAR(36)"),
+    UUID_RANDOM("UUID"),
+    UUID_TIME_ORDERED("UUID");
+
+    private final String columnType;
+
+    IdLayout(String columnType) {
+      this.columnType = columnType;
+    }
+  }
+
+  @Param({"VARCHAR_RANDOM", "UUID_RANDOM", "UUID_TIME_ORDERED"})
+  private IdLayout idLayout;
+
+  private Connection connection;
+  private PreparedStatement insertUser;
+  private long userNumber;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:insert-benchmark-" + idLayout, "sa", "");
+    connection.setAutoCommit(false);
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(CREATE_TABLE.formatted(idLayout.columnType));
+    }
+    insertUser = connection.prepareStatement(INSERT_USER);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try (Statement statement = connection.createStatement();
+         ResultSet diskSpace = statement.executeQuery(DISK_SPACE_USED)) {
+      diskSpace.next();
+      System.out.printf("%n%s: %d users, %d bytes used by the table and its indexes%n",
+                        idLayout, userNumber, diskSpace.getLong(1));
+    }
+    connection.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void insertBatch() throws SQLException {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      long number = userNumber++;
+      insertUser.setObject(1, generateId());
+      insertUser.setString(2, "user" + number + "@bench");
+      insertUser.setString(3, "First" + number);
+      insertUser.setString(4, "Last" + number);
+      insertUser.setDate(5, Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(number % 20_000)));
+      insertUser.addBatch();
+    }
+    insertUser.executeBatch();
+    connection.commit();
+  }
+
+  private Object generateId() {
+    return switch (idLayout) {
+      case VARCHAR_RANDOM -> UUID.randomUUID().toString();
+      case UUID_RANDOM -> UUID.randomUUID();
+      case UUID_TIME_ORDERED -> TimeOrderedUuidGenerator.generateUuid();
+    };
+  }
+}
@@ -0,0 +1,83 @@
+package com.clearsolutions.benchmark;
+
+import com.clearsolutions.mapper.UserMapper;
+import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.utils.MapperUtils;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mapping hot paths used by every search page and every PATCH request.
+ * The reflective PATCH path replaced by the generated MapStruct mapping is kept as a baseline.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+  private UserMapper userMapper;
+  private User user;
+  private UserDto partialUserDto;
+
+  @Setup
+  public void setUp() {
+    userMapper = Mappers.getMapper(UserMapper.class);
+    user = User.builder()
+        .id(UUID.randomUUID())
+        .email("dennis@com")
+        .firstName("Dennis")
+        .lastName("Ritchie")
+        .birthdate(LocalDate.of(1941, 9, 9))
+        .address("some address")
+        .phoneNumber("+38(097)-000-00-00")
+        .build();
+    partialUserDto = UserDto.builder()
+        .id(user.getId())
+        .lastName("Kernighan")
+        .address("another address")
+        .build();
+  }
+
+  @Benchmark
+  public UserDto toDto() {
+    return userMapper.toDto(user);
+  }
+
+  @Benchmark
+  public User updateEntityByNotNullValues() {
+    return userMapper.updateEntityByNotNullValues(partialUserDto, user);
+  }
+
+  @Benchmark
+  public User reflectiveUpdateEntityByNotNullValues() {
+    User source = userMapper.toEntity(partialUserDto);
+    String[] ignoreProperties = MapperUtils.definePropertiesWithNullValues(source);
+    BeanUtils.copyProperties(source, user, ignoreProperties);
+    return user;
+  }
+
+  @Benchmark
+  public String[] definePropertiesWithNullValues() {
+    return MapperUtils.definePropertiesWithNullValues(partialUserDto);
+  }
+}
@@ -0,0 +1,93 @@
+package com.clearsolutions.benchmark;
+
+import com.clearsolutions.config.BinaryFormatConfig;
+import com.clearsolutions.service.dto.UserDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the encoding and decoding cost of a search page of users in JSON, CBOR and Smile.
+ * The payload size of every format is printed once per fork, the allocation rate is reported by {@code -prof gc}.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+  @Param({"JSON", "CBOR", "SMILE"})
+  private String format;
+
+  @Param({"20"})
+  private int pageSize;
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private List<UserDto> users;
+  private byte[] payload;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper jsonMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    ObjectMapper objectMapper = switch (format) {
+      case "CBOR" -> BinaryFormatConfig.cborMapper(jsonMapper);
+      case "SMILE" -> BinaryFormatConfig.smileMapper(jsonMapper);
+      default -> jsonMapper;
+    };
+    TypeReference<List<UserDto>> usersType = new TypeReference<>() {
+    };
+    writer = objectMapper.writerFor(usersType);
+    reader = objectMapper.readerFor(usersType);
+    users = IntStream.range(0, pageSize)
+        .mapToObj(i -> UserDto.builder()
+            .id(UUID.randomUUID())
+            .email("user" + i + "@com")
+            .firstName("Dennis")
+            .lastName("Ritchie")
+            .birthdate(LocalDate.of(1941, 9, 9).plusDays(i))
+            .address("some address")
+            .phoneNumber("+38(097)-000-00-00")
+            .build())
+        .toList();
+    payload = writer.writeValueAsBytes(users);
+    System.out.printf("%n%s payload of %d users: %d bytes%n", format, pageSize, payload.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    return writer.writeValueAsBytes(users);
+  }
+
+  @Benchmark
+  public List<UserDto> decode() throws IOException {
+    return reader.readValue(payload);
+  }
+}
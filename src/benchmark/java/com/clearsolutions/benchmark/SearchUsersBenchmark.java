@@ -0,0 +1,146 @@
+package com.clearsolutions.benchmark;
+
+import com.clearsolutions.UserServiceApplication;
+import com.clearsolutions.mapper.UserMapper;
+import com.clearsolutions.repository.UserRepository;
+import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.specification.SearchFilter;
+import com.clearsolutions.service.specification.UserSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link UserService#searchUsers(SearchFilter, Pageable)} against an in-memory H2 database
+ * seeded with the given number of rows. The search cache is disabled so every call reaches the database.
+ * Seeding 10M rows requires a heap of several gigabytes, e.g. {@code -jvmArgs -Xmx8g}.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchUsersBenchmark {
+
+  private static final int PAGE_SIZE = 100;
+  private static final int BIRTHDATE_SPREAD_IN_DAYS = 25_000;
+  private static final int MINIMAL_AGE_IN_DAYS = 6_600;
+  private static final String SEED_USERS = """
+      INSERT INTO users(id, email, first_name, last_name, birthdate)
+      SELECT RANDOM_UUID(), CONCAT('user', X, '@bench'), CONCAT('First', X), CONCAT('Last', X),
+             DATEADD(DAY, -(MOD(X * 7919, ?) + ?), CURRENT_DATE)
+      FROM SYSTEM_RANGE(1, ?)
+      """;
+
+  private static final Specification<User> ALL_USERS = UserSpecification.getSpecification(new SearchFilter());
+
+  @Param({"100000", "1000000"})
+  private int rows;
+
+  private ConfigurableApplicationContext context;
+  private UserService userService;
+  private UserRepository userRepository;
+  private UserMapper userMapper;
+  private TransactionTemplate readOnlyTransaction;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new SpringApplicationBuilder(UserServiceApplication.class)
+        .web(WebApplicationType.NONE)
+        // arguments rather than default properties, which application.yaml would override
+        .run("--spring.datasource.url=jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1",
+             "--spring.jpa.show-sql=false",
+             "--spring.cache.type=none",
+             "--logging.level.root=WARN");
+    context.getBean(JdbcTemplate.class)
+        .update(SEED_USERS, BIRTHDATE_SPREAD_IN_DAYS, MINIMAL_AGE_IN_DAYS, rows);
+    userService = context.getBean(UserService.class);
+    userRepository = context.getBean(UserRepository.class);
+    userMapper = context.getBean(UserMapper.class);
+    readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    readOnlyTransaction.setReadOnly(true);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Page<UserDto> searchFirstPageWithoutFilter() {
+    return userService.searchUsers(new SearchFilter(), PageRequest.ofSize(PAGE_SIZE));
+  }
+
+  @Benchmark
+  public Page<UserDto> searchRandomPageWithoutFilter() {
+    int pageNumber = ThreadLocalRandom.current().nextInt(rows / PAGE_SIZE);
+    return userService.searchUsers(new SearchFilter(), PageRequest.of(pageNumber, PAGE_SIZE));
+  }
+
+  @Benchmark
+  public Slice<UserDto> searchRandomPageWithoutCount() {
+    int pageNumber = ThreadLocalRandom.current().nextInt(rows / PAGE_SIZE);
+    return userService.searchUsersWithoutCount(new SearchFilter(), PageRequest.of(pageNumber, PAGE_SIZE));
+  }
+
+  /**
+   * The former search path: managed entities mapped to DTOs, compare with {@link #searchRandomPageOfDtos()}.
+   */
+  @Benchmark
+  public Page<UserDto> searchRandomPageOfEntities() {
+    Pageable pageable = randomSortedPage();
+    return readOnlyTransaction.execute(status -> userRepository.findAll(ALL_USERS, pageable).map(userMapper::toDto));
+  }
+
+  @Benchmark
+  public Page<UserDto> searchRandomPageOfDtos() {
+    Pageable pageable = randomSortedPage();
+    return readOnlyTransaction.execute(status -> userRepository.findDtoPage(ALL_USERS, pageable));
+  }
+
+  private Pageable randomSortedPage() {
+    int pageNumber = ThreadLocalRandom.current().nextInt(rows / PAGE_SIZE);
+    return PageRequest.of(pageNumber, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "birthdate"));
+  }
+
+  @Benchmark
+  public Page<UserDto> searchFirstPageOfTenYearRange() {
+    LocalDate maxBirthdate = LocalDate.now().minusYears(20);
+    SearchFilter searchFilter = SearchFilter.builder()
+        .minBirthdate(maxBirthdate.minusYears(10))
+        .maxBirthdate(maxBirthdate)
+        .build();
+    return userService.searchUsers(searchFilter, PageRequest.ofSize(PAGE_SIZE));
+  }
+}
@@ -0,0 +1,32 @@
+package com.clearsolutions.config;
+
+import com.clearsolutions.controller.admission.AdmissionInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the admission control in front of the user endpoints.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Configuration(proxyBeanMethods = false)
+public class AdmissionConfig implements WebMvcConfigurer {
+
+  private static final String USER_ENDPOINTS = "/v1/users*/**";
+
+  private final AdmissionInterceptor admissionInterceptor;
+
+  public AdmissionConfig(AppConfig appConfig, ObjectProvider<MeterRegistry> meterRegistry) {
+    this.admissionInterceptor = new AdmissionInterceptor(appConfig,
+                                                         meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(admissionInterceptor).addPathPatterns(USER_ENDPOINTS);
+  }
+}
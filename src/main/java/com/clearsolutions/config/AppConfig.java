@@ -1,16 +1,70 @@
 package com.clearsolutions.config;
 
+import jakarta.validation.constraints.Pattern;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.validation.annotation.Validated;
 
-@ConfigurationProperties
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "application")
+@Validated
 @Getter
 @Setter
 public class AppConfig {
 
   private int minimalAgeInYears;
+
+  /**
+   * The default order of pages, it must be the order of the keyset pagination and the export,
+   * i.e. by birthdate with ID as a tie-breaker, so that all of them return users in the same order.
+   */
+  @Pattern(regexp = "birthdate", message = "must be birthdate, the order of the keyset pagination")
   private String userSortBy;
   private Direction userSortDirection;
+  private int maxUserBatchSize;
+  private int userBatchChunkSize;
+  private int userExportFetchSize;
+  private int userImportChunkSize;
+  private int userImportQueueCapacity;
+  private int maxConcurrentUserImports;
+  private long emailFilterExpectedUsers;
+  private double emailFilterFalsePositiveRate;
+  private boolean replicaRoutingEnabled;
+  private List<String> replicaUrls = new ArrayList<>();
+  private Duration replicaLagTolerance;
+  private Duration replicaHeartbeatInterval;
+  private boolean replicaCopyEnabled;
+  private Duration replicaCopyInterval;
+  private Duration userChangeVisibilityDelay;
+  private Duration userChangeRetention;
+  private Duration userChangeCompactionInterval;
+  private int userStreamBufferSize;
+  private Duration userStreamSendTimeout;
+  private Duration userStreamTimeout;
+  private Duration userStreamHeartbeatInterval;
+  private int searchResponseGzipMinSize;
+  private Duration searchCoalescingTimeout;
+  private String clientKeyHeader;
+  private double clientRequestRate;
+  private double clientRequestBurst;
+  private long maxTrackedClients;
+  private double searchRequestCost;
+  private double exportRequestCost;
+  private double bulkWriteRequestCost;
+  private int maxConcurrentSearches;
+  private int maxConcurrentWrites;
+  private int maxConcurrentStreams;
+  private int admissionQueueSize;
+  private Duration admissionQueueTimeout;
+  private Duration overloadRetryAfter;
+  private boolean userCreateCombiningEnabled;
+  private Duration userCreateCombiningWindow;
+  private Duration userCreateCombiningTimeout;
+  private int userCreateCombiningBatchSize;
+  private int userCreateCombiningQueueSize;
 }
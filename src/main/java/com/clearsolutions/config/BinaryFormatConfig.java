@@ -0,0 +1,42 @@
+package com.clearsolutions.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Enables CBOR and Smile payloads for service-to-service calls, JSON stays the default.
+ * The binary mappers are copies of the application's JSON mapper, so every format has the same modules
+ * and features, e.g. dates are written as ISO strings rather than arrays of numbers.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatConfig {
+
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+  public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+  public static ObjectMapper cborMapper(ObjectMapper objectMapper) {
+    return objectMapper.copyWith(new CBORFactory());
+  }
+
+  public static ObjectMapper smileMapper(ObjectMapper objectMapper) {
+    return objectMapper.copyWith(new SmileFactory());
+  }
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+    return new MappingJackson2CborHttpMessageConverter(cborMapper(objectMapper));
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+    return new MappingJackson2SmileHttpMessageConverter(smileMapper(objectMapper));
+  }
+}
@@ -0,0 +1,34 @@
+package com.clearsolutions.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@link io.micrometer.core.annotation.Timed} on the service methods and times each HQL query
+ * separately, e.g. the count query of a page. Repository invocations, caches, the second-level cache
+ * and HTTP requests are instrumented by Spring Boot.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+  private static final String SESSION_FACTORY_NAME = "users";
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+    return new TimedAspect(meterRegistry);
+  }
+
+  @Bean
+  public HibernateQueryMetrics hibernateQueryMetrics(EntityManagerFactory entityManagerFactory) {
+    return new HibernateQueryMetrics(entityManagerFactory.unwrap(SessionFactory.class), SESSION_FACTORY_NAME,
+                                     Tags.empty());
+  }
+}
@@ -0,0 +1,117 @@
+package com.clearsolutions.config;
+
+import com.clearsolutions.repository.routing.ReadWriteRoutingDataSource;
+import com.clearsolutions.repository.routing.ReplicaCopyJob;
+import com.clearsolutions.repository.routing.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions, i.e. searches, reads by ID and exports, to read replicas and all other
+ * work to the primary database configured by spring.datasource. The replicas share the credentials
+ * of the primary database and are opened read-only. Enabled by application.replica-routing-enabled.
+ * For local development the replicas can be H2 databases filled by {@link ReplicaCopyJob},
+ * enabled by application.replica-copy-enabled.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "application", name = "replica-routing-enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+  private static final String REPLICA_PREFIX = "replica-";
+  private static final String REPLICA_COPY_PREFIX = "replica-copy-";
+  private static final String FLYWAY_INITIALIZER = "flywayInitializer";
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+    return dataSourceProperties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+  }
+
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource,
+                                             DataSourceProperties dataSourceProperties,
+                                             AppConfig appConfig,
+                                             MeterRegistry meterRegistry) {
+    return new ReplicaLagMonitor(primaryDataSource, createReplicas(dataSourceProperties, appConfig),
+                                 appConfig.getReplicaLagTolerance(), meterRegistry);
+  }
+
+  /**
+   * Creates the schema of the replicas and copies the primary database to them, so a replica does not serve
+   * reads before its first copy. Runs after the primary database has been migrated.
+   */
+  @Bean
+  @DependsOn(FLYWAY_INITIALIZER)
+  @ConditionalOnProperty(prefix = "application", name = "replica-copy-enabled", havingValue = "true")
+  public ReplicaCopyJob replicaCopyJob(HikariDataSource primaryDataSource, DataSourceProperties dataSourceProperties,
+                                       AppConfig appConfig) {
+    List<String> replicaUrls = appConfig.getReplicaUrls();
+    List<DataSource> replicas = new ArrayList<>();
+
+    for (int i = 0; i < replicaUrls.size(); i++) {
+      HikariDataSource replica = dataSourceProperties.initializeDataSourceBuilder()
+          .type(HikariDataSource.class)
+          .url(replicaUrls.get(i))
+          .build();
+      replica.setPoolName(REPLICA_COPY_PREFIX + i);
+      // Flyway holds a second connection while it migrates
+      replica.setMaximumPoolSize(2);
+      Flyway.configure().dataSource(replica).load().migrate();
+      replicas.add(replica);
+    }
+    ReplicaCopyJob replicaCopyJob = new ReplicaCopyJob(primaryDataSource, replicas);
+    replicaCopyJob.copy();
+    return replicaCopyJob;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor) {
+    Map<String, DataSource> replicas = replicaLagMonitor.getReplicas();
+    Map<Object, Object> targetDataSources = new HashMap<>(replicas);
+    targetDataSources.put(ReadWriteRoutingDataSource.PRIMARY, primaryDataSource);
+
+    ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(new ArrayList<>(replicas.keySet()),
+                                                                                  replicaLagMonitor);
+    routingDataSource.setTargetDataSources(targetDataSources);
+    routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+    routingDataSource.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+
+  private Map<String, DataSource> createReplicas(DataSourceProperties dataSourceProperties, AppConfig appConfig) {
+    List<String> replicaUrls = appConfig.getReplicaUrls();
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+
+    for (int i = 0; i < replicaUrls.size(); i++) {
+      HikariDataSource replica = dataSourceProperties.initializeDataSourceBuilder()
+          .type(HikariDataSource.class)
+          .url(replicaUrls.get(i))
+          .build();
+      replica.setPoolName(REPLICA_PREFIX + i);
+      replica.setReadOnly(true);
+      replicas.put(REPLICA_PREFIX + i, replica);
+    }
+    return replicas;
+  }
+}
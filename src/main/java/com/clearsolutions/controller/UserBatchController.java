@@ -0,0 +1,243 @@
+package com.clearsolutions.controller;
+
+import com.clearsolutions.controller.admission.AdmittedAs;
+import com.clearsolutions.controller.admission.RequestClass;
+import com.clearsolutions.controller.imports.CsvUserReader;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.deleting.UserDeleter;
+import com.clearsolutions.service.dto.BatchResult;
+import com.clearsolutions.service.dto.DeleteResult;
+import com.clearsolutions.service.dto.ImportProgress;
+import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.importing.UserImporter;
+import com.clearsolutions.service.specification.SearchFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static com.clearsolutions.config.BinaryFormatConfig.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * REST controller which supports end points to manage users in bulk.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@RestController
+@RequestMapping("/v1")
+@RequiredArgsConstructor
+public class UserBatchController {
+
+  private static final String TEXT_CSV_VALUE = "text/csv";
+  private static final String USERS_IMPORT_URL = "/users:import";
+  private static final int LINE_SEPARATOR = '\n';
+
+  private final UserService userService;
+  private final UserImporter userImporter;
+  private final UserDeleter userDeleter;
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Creates users in bulk. Each user is validated by the same rules as a single created user,
+   * invalid users are skipped and reported with their errors. The batch and the result can be JSON, CBOR or Smile.
+   *
+   * @param users - users data
+   * @return BatchResult
+   */
+  @Operation(
+      summary = "Creates users in bulk",
+      operationId = "createUsers",
+      description = "Creates the valid users of the batch and reports an error for each invalid one",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Returns the ID of every created user and the error of every skipped one",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "created": 1,
+                    "failed": 1,
+                    "items": [
+                      {
+                        "index": 0,
+                        "id": "4d57987f-600b-4b88-8294-70b9cefb0a98",
+                        "error": null
+                      },
+                      {
+                        "index": 1,
+                        "id": null,
+                        "error": "User with email email@com already exists"
+                      }
+                    ]
+                  }
+                  """))),
+          @ApiResponse(
+              responseCode = "400",
+              description = "The batch size is not valid",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T14:10:54.715989458",
+                    "errorCode": 400,
+                    "details": "The batch must contain from 1 to 10000 users"
+                  }
+                  """)))
+      })
+  @PostMapping(value = "/users:batch",
+               consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+               produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+  @AdmittedAs(RequestClass.BULK_WRITE)
+  public BatchResult createUsers(@RequestBody List<UserDto> users) {
+    return userService.createUsers(users);
+  }
+
+  /**
+   * Deletes users by IDs in chunks, each chunk with one statement in its own transaction.
+   * IDs of users that do not exist are skipped.
+   *
+   * @param userIds - IDs of users to delete
+   * @return DeleteResult
+   */
+  @Operation(
+      summary = "Deletes users in bulk",
+      operationId = "deleteUsers",
+      description = "Deletes the users with the given IDs and returns the number of deleted users",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Returns the number of deleted users",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "deleted": 2
+                  }
+                  """))),
+          @ApiResponse(
+              responseCode = "400",
+              description = "The batch size is not valid",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T14:10:54.715989458",
+                    "errorCode": 400,
+                    "details": "The batch must contain from 1 to 10000 users"
+                  }
+                  """)))
+      })
+  @PostMapping(value = "/users:batchDelete", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+  @AdmittedAs(RequestClass.BULK_WRITE)
+  public DeleteResult deleteUsers(@RequestBody List<UUID> userIds) {
+    return userDeleter.deleteUsers(userIds);
+  }
+
+  /**
+   * Deletes all users matching the search parameters in chunks, each chunk with one statement
+   * in its own transaction. At least one search parameter is required.
+   *
+   * @param searchFilter - search parameters
+   * @return DeleteResult
+   */
+  @Operation(
+      summary = "Deletes users matching a filter",
+      operationId = "deleteMatchingUsers",
+      description = "Deletes the users found by minBirthdate, maxBirthdate, emailStartsWith, emailContains, "
+          + "nameStartsWith and nameContains parameters",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Returns the number of deleted users"),
+          @ApiResponse(
+              responseCode = "400",
+              description = "The search parameters are missing or not valid",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T14:10:54.715989458",
+                    "errorCode": 400,
+                    "details": "At least one search parameter is required to delete users by a filter"
+                  }
+                  """)))
+      })
+  @PostMapping(value = "/users:deleteMatching", produces = APPLICATION_JSON_VALUE)
+  @AdmittedAs(RequestClass.BULK_WRITE)
+  public DeleteResult deleteMatchingUsers(@ParameterObject SearchFilter searchFilter) {
+    return userDeleter.deleteUsers(searchFilter);
+  }
+
+  /**
+   * Imports users from an NDJSON upload of any size, see {@link #importUsersFromCsv(HttpServletRequest)}.
+   *
+   * @param request - a request with users, one JSON document per line
+   * @return StreamingResponseBody
+   */
+  @Operation(
+      summary = "Imports users from NDJSON",
+      operationId = "importUsersFromNdjson",
+      description = "Creates users read incrementally from the upload, streams the result of every chunk",
+      responses = @ApiResponse(
+          responseCode = "200",
+          description = "Streams the progress of every chunk, a failure is reported as the last line"))
+  @PostMapping(value = USERS_IMPORT_URL, consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+  @AdmittedAs(RequestClass.BULK_WRITE)
+  public StreamingResponseBody importUsersFromNdjson(HttpServletRequest request) {
+    return outputStream -> {
+      Iterator<UserDto> users = objectMapper.readerFor(UserDto.class).readValues(request.getInputStream());
+      importUsers(users, outputStream);
+    };
+  }
+
+  /**
+   * Imports users from a CSV upload of any size. The upload is read while the users are created
+   * in chunks, each chunk is committed separately and its result is streamed as an NDJSON line.
+   *
+   * @param request - a request with users, the first line is a header with the user field names
+   * @return StreamingResponseBody
+   */
+  @Operation(
+      summary = "Imports users from CSV",
+      operationId = "importUsersFromCsv",
+      description = "Creates users read incrementally from the upload, streams the result of every chunk",
+      responses = @ApiResponse(
+          responseCode = "200",
+          description = "Streams the progress of every chunk, a failure is reported as the last line"))
+  @PostMapping(value = USERS_IMPORT_URL, consumes = TEXT_CSV_VALUE, produces = APPLICATION_NDJSON_VALUE)
+  @AdmittedAs(RequestClass.BULK_WRITE)
+  public StreamingResponseBody importUsersFromCsv(HttpServletRequest request) {
+    return outputStream -> {
+      BufferedReader reader = new BufferedReader(
+          new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+      importUsers(new CsvUserReader(reader), outputStream);
+    };
+  }
+
+  private void importUsers(Iterator<UserDto> users, OutputStream outputStream) {
+    userImporter.importUsers(users, progress -> writeProgress(progress, outputStream));
+  }
+
+  private void writeProgress(ImportProgress progress, OutputStream outputStream) {
+    try {
+      outputStream.write(objectMapper.writeValueAsBytes(progress));
+      outputStream.write(LINE_SEPARATOR);
+      outputStream.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -1,8 +1,22 @@
 package com.clearsolutions.controller;
 
+import com.clearsolutions.controller.admission.AdmittedAs;
+import com.clearsolutions.controller.admission.RequestClass;
+import com.clearsolutions.controller.export.ExportFormat;
+import com.clearsolutions.controller.export.UserExportWriter;
+import com.clearsolutions.exceptionhandler.exceptions.PatchNotValidException;
 import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.cache.EncodedResponse;
+import com.clearsolutions.service.cache.UserSearchResponseCache;
+import com.clearsolutions.service.combining.UserCreateCombiner;
+import com.clearsolutions.service.dto.CursorPage;
+import com.clearsolutions.service.dto.UserChangeDto;
 import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.specification.CountStrategy;
 import com.clearsolutions.service.specification.SearchFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,8 +27,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.servers.Server;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.annotations.ParameterObject;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -24,16 +40,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import static com.clearsolutions.config.BinaryFormatConfig.APPLICATION_SMILE_VALUE;
+import static java.util.Objects.isNull;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 /**
@@ -53,12 +82,23 @@ public class UserController {
 
   private static final String V1 = "/v1";
   private static final String USER_URL = "/users/{id}";
+  private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+  private static final String GZIP_CODING = "gzip";
+  private static final String ANY_CODING = "*";
+  private static final String QUALITY_PARAMETER = "q=";
+  private static final String ANY_TAG = "*";
+  private static final String QUOTE = "\"";
+  private static final long UNMATCHED_VERSION = -1;
 
   private final UserService userService;
+  private final UserSearchResponseCache userSearchResponseCache;
+  private final UserCreateCombiner userCreateCombiner;
+  private final ObjectMapper objectMapper;
 
   /**
    * Creates a user if the data contains a first name, a last name, a birthdate and an email.
    * Address and phone number are optional. Email must have a valid format.
+   * If combining is enabled the user is created together with the users created concurrently.
    *
    * @param user - user data
    * @return ResponseEntity<Void>
@@ -93,8 +133,11 @@ public class UserController {
               """)))
       })
   @PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+  @AdmittedAs(RequestClass.WRITE)
   public ResponseEntity<Void> createUser(@RequestBody @Validated UserDto user) {
-    UserDto createdUser = userService.createUser(user);
+    UserDto createdUser = userCreateCombiner.isEnabled()
+                          ? userCreateCombiner.createUser(user)
+                          : userService.createUser(user);
     URI location = ServletUriComponentsBuilder.fromCurrentServletMapping()
         .path(V1 + USER_URL)
         .buildAndExpand(createdUser.getId())
@@ -103,20 +146,32 @@ public class UserController {
   }
 
   /**
-   * Searches for users by birthdate range.
+   * Searches for users by birthdate range and by prefixes or parts of emails and names.
+   * The total number of found users is counted exactly by default, it can also be estimated
+   * or omitted to avoid the count query, in the latter case a slice is returned.
+   * The pages counted exactly are cached encoded and written as they are, gzipped if the client accepts it.
+   * JSON is the default, CBOR or Smile is returned if the client prefers it in the Accept header.
    *
    * @param searchFilter - search parameters
+   * @param count - a count strategy
    * @param pageable - page settings
-   * @return Page<UserDto>
+   * @param accept - media types accepted by the client
+   * @param acceptEncoding - content codings accepted by the client
+   * @param request - a web request
+   * @return ResponseEntity<?>
    */
   @Operation(
       summary = "Searches for users",
       operationId = "searchUser",
-      description = "Searches for users using minBirthdate and maxBirthdate parameters",
+      description = "Searches for users using minBirthdate, maxBirthdate, emailStartsWith, emailContains, "
+          + "nameStartsWith and nameContains parameters",
       responses = {
           @ApiResponse(
               responseCode = "200",
-              description = "Returns a page with users"),
+              description = "Returns a page with users or a slice if the count strategy is NONE"),
+          @ApiResponse(
+              responseCode = "304",
+              description = "The page counted exactly has not changed since the ETag in If-None-Match"),
           @ApiResponse(
               responseCode = "400",
               description = "The request parameters are not valid",
@@ -128,10 +183,286 @@ public class UserController {
                   }
                   """)))
       })
-  @GetMapping(produces = APPLICATION_JSON_VALUE)
-  public Page<UserDto> searchUsers(@ParameterObject SearchFilter searchFilter,
-                                   @ParameterObject Pageable pageable) {
-    return userService.searchUsers(searchFilter, pageable);
+  @GetMapping(produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+  @AdmittedAs(RequestClass.SEARCH)
+  public ResponseEntity<?> searchUsers(
+      @ParameterObject SearchFilter searchFilter,
+      @Parameter(description = "how the total number of users is obtained: EXACT, ESTIMATE or NONE")
+      @RequestParam(defaultValue = "EXACT") CountStrategy count,
+      @ParameterObject Pageable pageable,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      WebRequest request) {
+    return switch (count) {
+      case EXACT -> {
+        MediaType mediaType = negotiateMediaType(accept);
+        EncodedResponse response = userSearchResponseCache.searchUsers(searchFilter, pageable, mediaType);
+        yield toResponse(response, mediaType, acceptEncoding, request);
+      }
+      case ESTIMATE -> ResponseEntity.ok(userService.searchUsersWithEstimatedCount(searchFilter, pageable));
+      case NONE -> ResponseEntity.ok(userService.searchUsersWithoutCount(searchFilter, pageable));
+    };
+  }
+
+  private MediaType negotiateMediaType(String accept) {
+    if (isNull(accept) || accept.isBlank()) {
+      return MediaType.APPLICATION_JSON;
+    }
+    List<MediaType> acceptedTypes = MediaType.parseMediaTypes(accept).stream()
+        .filter(acceptedType -> acceptedType.getQualityValue() > 0)
+        .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+        .toList();
+
+    for (MediaType acceptedType : acceptedTypes) {
+      for (MediaType mediaType : UserSearchResponseCache.MEDIA_TYPES) {
+        if (acceptedType.includes(mediaType)) {
+          return mediaType;
+        }
+      }
+    }
+    return MediaType.APPLICATION_JSON;
+  }
+
+  private ResponseEntity<byte[]> toResponse(EncodedResponse response, MediaType mediaType, String acceptEncoding,
+                                            WebRequest request) {
+    boolean gzipped = response.isGzipped() && acceptsGzip(acceptEncoding);
+    String eTag = gzipped ? response.getGzippedETag() : response.getETag();
+
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+    ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok()
+        .contentType(mediaType)
+        .eTag(eTag)
+        .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+
+    if (gzipped) {
+      return responseBuilder.header(HttpHeaders.CONTENT_ENCODING, GZIP_CODING).body(response.getGzippedBody());
+    }
+    return responseBuilder.body(response.getBody());
+  }
+
+  private boolean acceptsGzip(String acceptEncoding) {
+    if (isNull(acceptEncoding)) {
+      return false;
+    }
+
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parameters = coding.trim().split(";");
+      String name = parameters[0].trim();
+
+      if ((GZIP_CODING.equalsIgnoreCase(name) || ANY_CODING.equals(name)) && !isRejected(parameters)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isRejected(String[] codingParameters) {
+    for (int i = 1; i < codingParameters.length; i++) {
+      String parameter = codingParameters[i].trim();
+
+      if (parameter.startsWith(QUALITY_PARAMETER)) {
+        try {
+          return Double.parseDouble(parameter.substring(QUALITY_PARAMETER.length())) == 0;
+        } catch (NumberFormatException e) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Scrolls through users in the birthdate range using an opaque cursor instead of a page number.
+   * The first page is requested with an empty cursor, each next one with the nextCursor of the previous page.
+   * Only the size of the page settings is taken into account.
+   *
+   * @param searchFilter - search parameters
+   * @param cursor - the nextCursor of the previous page
+   * @param pageable - page settings
+   * @return CursorPage<UserDto>
+   */
+  @Operation(
+      summary = "Scrolls through users",
+      operationId = "scrollUsers",
+      description = "Searches for users using minBirthdate and maxBirthdate parameters with cursor pagination",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Returns users and the cursor of the next page, which is null on the last page"),
+          @ApiResponse(
+              responseCode = "400",
+              description = "The request parameters are not valid",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T21:16:45.044736999",
+                    "errorCode": 400,
+                    "details": "The cursor=abc is not valid"
+                  }
+                  """)))
+      })
+  @GetMapping(params = "cursor", produces = APPLICATION_JSON_VALUE)
+  @AdmittedAs(RequestClass.SEARCH)
+  public CursorPage<UserDto> scrollUsers(
+      @ParameterObject SearchFilter searchFilter,
+      @Parameter(description = "the nextCursor of the previous page, empty for the first page")
+      @RequestParam String cursor,
+      @ParameterObject Pageable pageable) {
+    return userService.scrollUsers(searchFilter, cursor, pageable.getPageSize());
+  }
+
+  /**
+   * Returns the changes of users following the cursor in the order they were made, so that a mirror of users
+   * is kept in sync by reading the changes only. The first batch is requested with an empty cursor and returns
+   * the changes of all existing users, each next one with the nextCursor of the previous batch.
+   * Only the size of the page settings is taken into account.
+   *
+   * @param after - the nextCursor of the previous batch
+   * @param pageable - page settings
+   * @return CursorPage<UserChangeDto>
+   */
+  @Operation(
+      summary = "Returns changes of users",
+      operationId = "getUserChanges",
+      description = "Returns created, updated and deleted users in the order of the changes after the cursor",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Returns changes and the cursor to request the next ones with"),
+          @ApiResponse(
+              responseCode = "400",
+              description = "The cursor is not valid",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T21:16:45.044736999",
+                    "errorCode": 400,
+                    "details": "The cursor=abc is not valid"
+                  }
+                  """))),
+          @ApiResponse(
+              responseCode = "410",
+              description = "The deletions after the cursor are pruned and the sync must start from the beginning",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T21:16:45.044736999",
+                    "errorCode": 410,
+                    "details": "The changes after the cursor=15 are pruned, sync from the start"
+                  }
+                  """)))
+      })
+  @GetMapping(value = "/changes", produces = APPLICATION_JSON_VALUE)
+  @AdmittedAs(RequestClass.SEARCH)
+  public CursorPage<UserChangeDto> getUserChanges(
+      @Parameter(description = "the nextCursor of the previous batch, empty to sync from the start")
+      @RequestParam(defaultValue = "") String after,
+      @ParameterObject Pageable pageable) {
+    return userService.getUserChanges(after, pageable.getPageSize());
+  }
+
+  /**
+   * Exports all users in the birthdate range as NDJSON, CSV, a CBOR sequence or a Smile stream.
+   * The users are written to the response
+   * while they are read from the database, so the export of any size uses constant memory.
+   *
+   * @param searchFilter - search parameters
+   * @param format - an export format
+   * @return ResponseEntity<StreamingResponseBody>
+   */
+  @Operation(
+      summary = "Exports users",
+      operationId = "exportUsers",
+      description = "Streams users found by minBirthdate and maxBirthdate parameters as NDJSON, CSV, CBOR or Smile",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Streams the found users"),
+          @ApiResponse(
+              responseCode = "400",
+              description = "The request parameters are not valid",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T21:16:45.044736999",
+                    "errorCode": 400,
+                    "details": "The value of maxBirthdate=2022-03-07 cannot be before minBirthdate=1980-03-07"
+                  }
+                  """)))
+      })
+  @GetMapping("/export")
+  @AdmittedAs(RequestClass.EXPORT)
+  public ResponseEntity<StreamingResponseBody> exportUsers(
+      @ParameterObject SearchFilter searchFilter,
+      @Parameter(description = "an export format: NDJSON, CSV, CBOR or SMILE")
+      @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+    userService.verifySearchFilter(searchFilter);
+    StreamingResponseBody responseBody = outputStream -> {
+      UserExportWriter writer = UserExportWriter.of(format, outputStream, objectMapper);
+      userService.exportUsers(searchFilter, user -> writeUser(writer, user));
+      writer.finish();
+    };
+    ContentDisposition contentDisposition = ContentDisposition.attachment()
+        .filename(format.getFileName())
+        .build();
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(format.getMediaType()))
+        .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+        .body(responseBody);
+  }
+
+  private void writeUser(UserExportWriter writer, UserDto user) {
+    try {
+      writer.write(user);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns a user with the version of their data as a strong ETag. If the ETag matches If-None-Match
+   * the response is 304 Not Modified without a body, so the user is not serialized.
+   * JSON is the default, CBOR or Smile is returned if the client prefers it in the Accept header.
+   *
+   * @param userId - a user ID
+   * @return ResponseEntity<UserDto>
+   */
+  @Operation(
+      summary = "Returns a user",
+      operationId = "getUser",
+      description = "Returns a user by ID, the response has an ETag and supports If-None-Match",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Returns the user"),
+          @ApiResponse(
+              responseCode = "304",
+              description = "The user has not been modified since the version in If-None-Match"),
+          @ApiResponse(
+              responseCode = "404",
+              description = "The user was not found in a database",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-26T09:22:53.840331928",
+                    "errorCode": 404,
+                    "details": "User with id=776c0aed-72fa-45d8-a65a-8f3ae131097f not found"
+                  }
+                  """)))
+      })
+  @GetMapping(value = "/{userId}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+  public ResponseEntity<UserDto> getUser(
+      @Parameter(description = "a user ID", example = "4d57987f-600b-4b88-8294-70b9cefb0a98")
+      @PathVariable UUID userId,
+      WebRequest request) {
+    UserDto user = userService.getUserById(userId);
+    String eTag = String.valueOf(user.getVersion());
+
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+    return ResponseEntity.ok()
+        .eTag(eTag)
+        .body(user);
   }
 
   /**
@@ -171,6 +502,7 @@ public class UserController {
       })
   @ResponseStatus(NO_CONTENT)
   @DeleteMapping(value = "/{userId}")
+  @AdmittedAs(RequestClass.WRITE)
   public void deleteUser(
       @Parameter(description = "a user ID", example = "4d57987f-600b-4b88-8294-70b9cefb0a98")
       @PathVariable UUID userId) {
@@ -182,6 +514,7 @@ public class UserController {
    * Address and phone number are optional. Email must have a valid format.
    *
    * @param userId - a user ID
+   * @param ifMatch - the If-Match header with the expected version of the user
    * @param user - user data
    */
   @Operation(
@@ -221,15 +554,31 @@ public class UserController {
                     "errorCode": 409,
                     "details": "User with email email@com already exists"
                   }
+              """))),
+          @ApiResponse(
+              responseCode = "412",
+              description = "The user's version does not match If-Match",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T21:46:10.586265784",
+                    "errorCode": 412,
+                    "details": "User with id=776c0aed-72fa-45d8-a65a-8f3ae131097f does not have the version 2, \
+              it has been changed"
+                  }
               """)))
       })
   @ResponseStatus(OK)
   @PutMapping(value = "/{userId}")
+  @AdmittedAs(RequestClass.WRITE)
   public void updateUser(
       @Parameter(description = "a user ID", example = "4d57987f-600b-4b88-8294-70b9cefb0a98")
       @PathVariable UUID userId,
+      @Parameter(description = "the user's version from the ETag, the user is updated only if it matches",
+                 example = "\"3\"")
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody @Validated UserDto user) {
     user.setId(userId);
+    user.setVersion(parseVersion(ifMatch));
     userService.updateUser(user);
   }
 
@@ -237,6 +586,7 @@ public class UserController {
    * Updates user with provided data. There is no constraints for data of an input object.
    *
    * @param userId - a user ID
+   * @param ifMatch - the If-Match header with the expected version of the user
    * @param user - user data
    */
   @Operation(
@@ -276,15 +626,151 @@ public class UserController {
                     "errorCode": 409,
                     "details": "User with email email@com already exists"
                   }
+              """))),
+          @ApiResponse(
+              responseCode = "412",
+              description = "The user's version does not match If-Match",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T21:46:10.586265784",
+                    "errorCode": 412,
+                    "details": "User with id=776c0aed-72fa-45d8-a65a-8f3ae131097f does not have the version 2, \
+              it has been changed"
+                  }
               """)))
       })
   @ResponseStatus(OK)
   @PatchMapping(value = "/{userId}")
+  @AdmittedAs(RequestClass.WRITE)
   public void updateUserPartially(
       @Parameter(description = "a user ID", example = "4d57987f-600b-4b88-8294-70b9cefb0a98")
       @PathVariable UUID userId,
+      @Parameter(description = "the user's version from the ETag, the user is updated only if it matches",
+                 example = "\"3\"")
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody UserDto user) {
     user.setId(userId);
+    user.setVersion(parseVersion(ifMatch));
     userService.updateUserPartially(user);
   }
+
+  /**
+   * Updates user with a JSON merge patch (RFC 7396). Properties absent in the patch are not changed,
+   * properties with null values are removed, the other properties are updated like by a partial update.
+   *
+   * @param userId - a user ID
+   * @param ifMatch - the If-Match header with the expected version of the user
+   * @param patch - a JSON merge patch
+   */
+  @Operation(
+      summary = "Updates a user with a JSON merge patch",
+      operationId = "mergePatchUser",
+      description = "Updates user's properties present in the patch, optional properties set to null are removed",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Updates a user with the patch"),
+          @ApiResponse(
+              responseCode = "400",
+              description = "The patch is not valid",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T14:10:54.715989458",
+                    "errorCode": 400,
+                    "details": "The property email is required and cannot be removed"
+                  }
+                  """))),
+          @ApiResponse(
+              responseCode = "404",
+              description = "A user not found",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-26T09:22:53.840331928",
+                    "errorCode": 404,
+                    "details": "User with id=776c0aed-72fa-45d8-a65a-8f3ae131097f not found"
+                  }
+                  """))),
+          @ApiResponse(
+              responseCode = "409",
+              description = "User email is not unique",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T21:46:10.586265784",
+                    "errorCode": 409,
+                    "details": "User with email email@com already exists"
+                  }
+              """))),
+          @ApiResponse(
+              responseCode = "412",
+              description = "The user's version does not match If-Match",
+              content = @Content(examples = @ExampleObject("""
+                  {
+                    "timestamp": "2024-04-25T21:46:10.586265784",
+                    "errorCode": 412,
+                    "details": "User with id=776c0aed-72fa-45d8-a65a-8f3ae131097f does not have the version 2, \
+              it has been changed"
+                  }
+              """)))
+      })
+  @ResponseStatus(OK)
+  @PatchMapping(value = "/{userId}", consumes = MERGE_PATCH_JSON_VALUE)
+  @AdmittedAs(RequestClass.WRITE)
+  public void mergePatchUser(
+      @Parameter(description = "a user ID", example = "4d57987f-600b-4b88-8294-70b9cefb0a98")
+      @PathVariable UUID userId,
+      @Parameter(description = "the user's version from the ETag, the user is updated only if it matches",
+                 example = "\"3\"")
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody JsonNode patch) {
+    UserDto user = toUserDto(patch);
+    user.setId(userId);
+    user.setVersion(parseVersion(ifMatch));
+    userService.updateUserPartially(user, defineRemovedProperties(patch));
+  }
+
+  /**
+   * Parses the version from If-Match. Any entity tag matches if the header is absent or is *.
+   * If-Match uses the strong comparison, so a weak tag, a list of tags or a tag that is not a version
+   * can never match and is parsed as a version that no user has.
+   *
+   * @param ifMatch - the If-Match header
+   * @return Long
+   */
+  private Long parseVersion(String ifMatch) {
+    if (isNull(ifMatch) || ifMatch.isBlank() || ANY_TAG.equals(ifMatch.trim())) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+
+    if (tag.length() > 2 && tag.startsWith(QUOTE) && tag.endsWith(QUOTE)) {
+      try {
+        return Long.parseLong(tag.substring(1, tag.length() - 1));
+      } catch (NumberFormatException e) {
+        return UNMATCHED_VERSION;
+      }
+    }
+    return UNMATCHED_VERSION;
+  }
+
+  private UserDto toUserDto(JsonNode patch) {
+    if (!patch.isObject()) {
+      throw new PatchNotValidException();
+    }
+
+    try {
+      return objectMapper.treeToValue(patch, UserDto.class);
+    } catch (JsonProcessingException e) {
+      throw new PatchNotValidException();
+    }
+  }
+
+  private Set<String> defineRemovedProperties(JsonNode patch) {
+    Set<String> removedProperties = new HashSet<>();
+    patch.fields().forEachRemaining(field -> {
+      if (field.getValue().isNull()) {
+        removedProperties.add(field.getKey());
+      }
+    });
+    return removedProperties;
+  }
 }
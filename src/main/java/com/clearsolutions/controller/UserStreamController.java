@@ -0,0 +1,70 @@
+package com.clearsolutions.controller;
+
+import com.clearsolutions.controller.admission.AdmittedAs;
+import com.clearsolutions.controller.admission.RequestClass;
+import com.clearsolutions.service.changes.UserChangeBroadcaster;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+/**
+ * REST controller which pushes changes of users to subscribers.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@RestController
+@RequestMapping("/v1/users")
+@RequiredArgsConstructor
+public class UserStreamController {
+
+  private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+  private final UserChangeBroadcaster userChangeBroadcaster;
+
+  /**
+   * Streams changes of users as server-sent events after they are committed. Every change event has the ID
+   * of the change in the change feed, so a reconnecting client resumes by the Last-Event-ID header.
+   * A client falling behind gets a resync event carrying the ID of the last sent change and is disconnected,
+   * it reconnects with that ID or reads the missed changes from the change feed.
+   *
+   * @param lastEventId - the ID of the last received event
+   * @return SseEmitter
+   */
+  @Operation(
+      summary = "Streams changes of users",
+      operationId = "streamUserChanges",
+      description = "Pushes created, updated and deleted users as server-sent events",
+      responses = {
+          @ApiResponse(
+              responseCode = "200",
+              description = "Streams change events, a resync event means that the client has to resume",
+              content = @Content(mediaType = TEXT_EVENT_STREAM_VALUE, examples = @ExampleObject("""
+                  id:16
+                  data:{"id":16,"type":"DELETED","userId":"4d57987f-600b-4b88-8294-70b9cefb0a98","user":null}
+
+                  id:16
+                  event:resync
+                  data:16
+                  """))),
+          @ApiResponse(
+              responseCode = "400",
+              description = "The Last-Event-ID is not valid")
+      })
+  @GetMapping(value = "/stream", produces = TEXT_EVENT_STREAM_VALUE)
+  @AdmittedAs(RequestClass.STREAM)
+  public SseEmitter streamUserChanges(
+      @Parameter(description = "the ID of the last received event to resume after")
+      @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+    return userChangeBroadcaster.subscribe(lastEventId);
+  }
+}
@@ -0,0 +1,150 @@
+package com.clearsolutions.controller.admission;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.exceptionhandler.exceptions.ServiceOverloadedException;
+import com.clearsolutions.exceptionhandler.exceptions.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Admits requests to the user endpoints by their cost before they take a database connection.
+ * Every client has a token bucket, a request costs tokens by its class and is rejected with 429
+ * if the client's bucket has not enough of them. Searches and exports, as well as writes, are then
+ * limited in number by their own concurrency limits, and so are the streams of server-sent events,
+ * a request that finds its limit saturated is rejected with 503. Both rejections tell the client when to retry.
+ * Clients are told apart by the client key header set by the gateway, by the remote address without it.
+ * The permit of an asynchronous request, e.g. an export or a stream, is held until the response is complete.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+  private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".permit";
+  private static final String REJECTIONS_METRIC = "users.admission.rejections";
+  private static final String IN_FLIGHT_METRIC = "users.admission.in.flight";
+  private static final String REASON_TAG = "reason";
+  private static final String CLASS_TAG = "class";
+  private static final String RATE_REASON = "rate";
+  private static final String OVERLOAD_REASON = "overload";
+  private static final String SEARCH_LIMIT = "search";
+  private static final String WRITE_LIMIT = "write";
+  private static final String STREAM_LIMIT = "stream";
+
+  private final AppConfig appConfig;
+  private final MeterRegistry meterRegistry;
+  private final Cache<String, TokenBucket> tokenBuckets;
+  private final ConcurrencyLimit searchLimit;
+  private final ConcurrencyLimit writeLimit;
+  private final ConcurrencyLimit streamLimit;
+
+  public AdmissionInterceptor(AppConfig appConfig, MeterRegistry meterRegistry) {
+    this.appConfig = appConfig;
+    this.meterRegistry = meterRegistry;
+    this.tokenBuckets = Caffeine.newBuilder()
+        .maximumSize(appConfig.getMaxTrackedClients())
+        .expireAfterAccess(Duration.ofSeconds(bucketRefillSeconds(appConfig)))
+        .build();
+    this.searchLimit = new ConcurrencyLimit(appConfig.getMaxConcurrentSearches(), appConfig.getAdmissionQueueSize());
+    this.writeLimit = new ConcurrencyLimit(appConfig.getMaxConcurrentWrites(), appConfig.getAdmissionQueueSize());
+    this.streamLimit = new ConcurrencyLimit(appConfig.getMaxConcurrentStreams(), appConfig.getAdmissionQueueSize());
+    Gauge.builder(IN_FLIGHT_METRIC, searchLimit, ConcurrencyLimit::getInFlight)
+        .tag(CLASS_TAG, SEARCH_LIMIT)
+        .register(meterRegistry);
+    Gauge.builder(IN_FLIGHT_METRIC, writeLimit, ConcurrencyLimit::getInFlight)
+        .tag(CLASS_TAG, WRITE_LIMIT)
+        .register(meterRegistry);
+    Gauge.builder(IN_FLIGHT_METRIC, streamLimit, ConcurrencyLimit::getInFlight)
+        .tag(CLASS_TAG, STREAM_LIMIT)
+        .register(meterRegistry);
+  }
+
+  /**
+   * An idle bucket is forgotten once it would have been refilled anyway, so forgetting it changes nothing.
+   */
+  private static long bucketRefillSeconds(AppConfig appConfig) {
+    return (long) Math.ceil(appConfig.getClientRequestBurst() / appConfig.getClientRequestRate()) + 1;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws InterruptedException {
+    if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod handlerMethod)) {
+      return true;
+    }
+    RequestClass requestClass = defineRequestClass(handlerMethod);
+    String clientKey = defineClientKey(request);
+    TokenBucket tokenBucket = tokenBuckets.get(clientKey, key -> new TokenBucket(
+        appConfig.getClientRequestBurst(), appConfig.getClientRequestRate(), System.nanoTime()));
+    double cost = defineCost(requestClass);
+    long waitNanos = tokenBucket.tryConsume(cost, System.nanoTime());
+
+    if (waitNanos > 0) {
+      reject(RATE_REASON, requestClass);
+      throw new TooManyRequestsException(clientKey, Duration.ofNanos(waitNanos));
+    }
+    ConcurrencyLimit limit = defineLimit(requestClass);
+
+    if (nonNull(limit)) {
+      if (!limit.tryAcquire(appConfig.getAdmissionQueueTimeout())) {
+        tokenBucket.refund(cost);
+        reject(OVERLOAD_REASON, requestClass);
+        throw new ServiceOverloadedException(requestClass.name().toLowerCase(), appConfig.getOverloadRetryAfter());
+      }
+      request.setAttribute(PERMIT_ATTRIBUTE, limit);
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                              Exception ex) {
+    if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof ConcurrencyLimit limit) {
+      request.removeAttribute(PERMIT_ATTRIBUTE);
+      limit.release();
+    }
+  }
+
+  private RequestClass defineRequestClass(HandlerMethod handlerMethod) {
+    AdmittedAs admittedAs = handlerMethod.getMethodAnnotation(AdmittedAs.class);
+    return isNull(admittedAs) ? RequestClass.READ : admittedAs.value();
+  }
+
+  private String defineClientKey(HttpServletRequest request) {
+    String clientKey = request.getHeader(appConfig.getClientKeyHeader());
+    return isNull(clientKey) || clientKey.isBlank() ? request.getRemoteAddr() : clientKey;
+  }
+
+  private double defineCost(RequestClass requestClass) {
+    return switch (requestClass) {
+      case READ, WRITE, STREAM -> 1;
+      case SEARCH -> appConfig.getSearchRequestCost();
+      case EXPORT -> appConfig.getExportRequestCost();
+      case BULK_WRITE -> appConfig.getBulkWriteRequestCost();
+    };
+  }
+
+  private ConcurrencyLimit defineLimit(RequestClass requestClass) {
+    return switch (requestClass) {
+      case READ -> null;
+      case SEARCH, EXPORT -> searchLimit;
+      case WRITE, BULK_WRITE -> writeLimit;
+      case STREAM -> streamLimit;
+    };
+  }
+
+  private void reject(String reason, RequestClass requestClass) {
+    meterRegistry.counter(REJECTIONS_METRIC, REASON_TAG, reason, CLASS_TAG, requestClass.name()).increment();
+  }
+}
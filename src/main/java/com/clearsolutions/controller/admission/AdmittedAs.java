@@ -0,0 +1,19 @@
+package com.clearsolutions.controller.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method with the class of its requests,
+ * the requests of unmarked handlers are {@link RequestClass#READ}.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdmittedAs {
+
+  RequestClass value();
+}
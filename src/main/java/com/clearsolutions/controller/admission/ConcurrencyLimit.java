@@ -0,0 +1,59 @@
+package com.clearsolutions.controller.admission;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of requests of a class processed at the same time. A request waits for a permit
+ * for a short time only and only if few requests are waiting, otherwise it is rejected at once,
+ * so the waiting requests do not hold the server threads the other classes need.
+ *
+ * @author Oleksandr Semenchenko
+ */
+class ConcurrencyLimit {
+
+  private final Semaphore permits;
+  private final int limit;
+  private final int queueSize;
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  ConcurrencyLimit(int limit, int queueSize) {
+    this.permits = new Semaphore(limit, true);
+    this.limit = limit;
+    this.queueSize = queueSize;
+  }
+
+  /**
+   * Takes a permit, waiting for it up to the timeout if the queue is not full.
+   *
+   * @param timeout - the maximum time to wait
+   * @return boolean - true if the permit is taken and must be released
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  boolean tryAcquire(Duration timeout) throws InterruptedException {
+    if (permits.tryAcquire()) {
+      return true;
+    }
+
+    if (waiting.incrementAndGet() > queueSize) {
+      waiting.decrementAndGet();
+      return false;
+    }
+
+    try {
+      return permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  void release() {
+    permits.release();
+  }
+
+  int getInFlight() {
+    return limit - permits.availablePermits();
+  }
+}
@@ -0,0 +1,19 @@
+package com.clearsolutions.controller.admission;
+
+/**
+ * The class of a request for the admission control. Searches and exports share one concurrency limit
+ * and writes another, so expensive reads cannot take the connections the writes need. Streams hold
+ * their connections for long, so they have a limit of their own. Reads by ID are cheap and limited
+ * by the client's rate only.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public enum RequestClass {
+
+  READ,
+  SEARCH,
+  EXPORT,
+  WRITE,
+  BULK_WRITE,
+  STREAM
+}
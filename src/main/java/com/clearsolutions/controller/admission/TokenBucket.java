@@ -0,0 +1,61 @@
+package com.clearsolutions.controller.admission;
+
+/**
+ * A token bucket of one client. The bucket is refilled at a constant rate up to its capacity,
+ * a request is admitted if the bucket has as many tokens as the request costs.
+ *
+ * @author Oleksandr Semenchenko
+ */
+class TokenBucket {
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+  private final double capacity;
+  private final double tokensPerNano;
+  private double tokens;
+  private long refilledAt;
+
+  TokenBucket(double capacity, double tokensPerSecond, long nanoTime) {
+    this.capacity = capacity;
+    this.tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+    this.tokens = capacity;
+    this.refilledAt = nanoTime;
+  }
+
+  /**
+   * Takes the tokens a request costs if the bucket has enough of them. A cost above the capacity
+   * is capped by the capacity, so the most expensive request is admitted from a full bucket.
+   *
+   * @param cost - the cost of a request
+   * @param nanoTime - the current value of {@link System#nanoTime()}
+   * @return long - 0 if the tokens are taken, otherwise the nanoseconds until the bucket has enough tokens
+   */
+  synchronized long tryConsume(double cost, long nanoTime) {
+    refill(nanoTime);
+    double required = Math.min(cost, capacity);
+
+    if (tokens >= required) {
+      tokens -= required;
+      return 0;
+    }
+    return Math.max(1, (long) Math.ceil((required - tokens) / tokensPerNano));
+  }
+
+  /**
+   * Returns the tokens of a request that has been rejected for another reason.
+   *
+   * @param cost - the cost of the request
+   */
+  synchronized void refund(double cost) {
+    tokens = Math.min(capacity, tokens + Math.min(cost, capacity));
+  }
+
+  private void refill(long nanoTime) {
+    long elapsed = nanoTime - refilledAt;
+
+    if (elapsed > 0) {
+      tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+      refilledAt = nanoTime;
+    }
+  }
+}
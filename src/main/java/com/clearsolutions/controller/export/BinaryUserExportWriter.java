@@ -0,0 +1,38 @@
+package com.clearsolutions.controller.export;
+
+import com.clearsolutions.service.dto.UserDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes every user as a data item of a binary format one after another, i.e. a CBOR sequence (RFC 8742)
+ * or a Smile stream, which need no separator between the items.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public class BinaryUserExportWriter implements UserExportWriter {
+
+  private final JsonGenerator generator;
+  private final ObjectWriter userWriter;
+
+  public BinaryUserExportWriter(OutputStream outputStream, ObjectMapper binaryMapper) throws IOException {
+    generator = binaryMapper.getFactory().createGenerator(outputStream)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    userWriter = binaryMapper.writerFor(UserDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  @Override
+  public void write(UserDto user) throws IOException {
+    userWriter.writeValue(generator, user);
+  }
+
+  @Override
+  public void finish() throws IOException {
+    generator.flush();
+  }
+}
@@ -0,0 +1,71 @@
+package com.clearsolutions.controller.export;
+
+import com.clearsolutions.service.dto.UserDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Writes users as RFC 4180 CSV rows with a header row.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public class CsvUserExportWriter implements UserExportWriter {
+
+  private static final String HEADER = "id,email,firstName,lastName,birthdate,address,phoneNumber\r\n";
+  private static final String LINE_SEPARATOR = "\r\n";
+  private static final char DELIMITER = ',';
+  private static final char QUOTE = '"';
+
+  private final Writer writer;
+
+  public CsvUserExportWriter(OutputStream outputStream) throws IOException {
+    writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    writer.write(HEADER);
+  }
+
+  @Override
+  public void write(UserDto user) throws IOException {
+    writeField(user.getId());
+    writer.write(DELIMITER);
+    writeField(user.getEmail());
+    writer.write(DELIMITER);
+    writeField(user.getFirstName());
+    writer.write(DELIMITER);
+    writeField(user.getLastName());
+    writer.write(DELIMITER);
+    writeField(user.getBirthdate());
+    writer.write(DELIMITER);
+    writeField(user.getAddress());
+    writer.write(DELIMITER);
+    writeField(user.getPhoneNumber());
+    writer.write(LINE_SEPARATOR);
+  }
+
+  private void writeField(Object value) throws IOException {
+    if (isNull(value)) {
+      return;
+    }
+    String field = value.toString();
+
+    if (field.indexOf(DELIMITER) < 0 && field.indexOf(QUOTE) < 0
+        && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+      writer.write(field);
+      return;
+    }
+    writer.write(QUOTE);
+    writer.write(field.replace("\"", "\"\""));
+    writer.write(QUOTE);
+  }
+
+  @Override
+  public void finish() throws IOException {
+    writer.flush();
+  }
+}
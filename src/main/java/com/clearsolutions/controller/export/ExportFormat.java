@@ -0,0 +1,17 @@
+package com.clearsolutions.controller.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+
+  NDJSON("application/x-ndjson", "users.ndjson"),
+  CSV("text/csv", "users.csv"),
+  CBOR("application/cbor-seq", "users.cbor"),
+  SMILE("application/x-jackson-smile", "users.sml");
+
+  private final String mediaType;
+  private final String fileName;
+}
@@ -0,0 +1,41 @@
+package com.clearsolutions.controller.export;
+
+import com.clearsolutions.service.dto.UserDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes every user as a JSON document on its own line.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public class NdjsonUserExportWriter implements UserExportWriter {
+
+  private static final char LINE_SEPARATOR = '\n';
+
+  private final JsonGenerator generator;
+  private final ObjectWriter userWriter;
+
+  public NdjsonUserExportWriter(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+    generator = objectMapper.getFactory().createGenerator(outputStream)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .setRootValueSeparator(null);
+    userWriter = objectMapper.writerFor(UserDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  @Override
+  public void write(UserDto user) throws IOException {
+    userWriter.writeValue(generator, user);
+    generator.writeRaw(LINE_SEPARATOR);
+  }
+
+  @Override
+  public void finish() throws IOException {
+    generator.flush();
+  }
+}
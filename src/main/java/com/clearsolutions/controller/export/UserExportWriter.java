@@ -0,0 +1,35 @@
+package com.clearsolutions.controller.export;
+
+import com.clearsolutions.config.BinaryFormatConfig;
+import com.clearsolutions.service.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes exported users to an output stream one by one without buffering them.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public interface UserExportWriter {
+
+  static UserExportWriter of(ExportFormat format, OutputStream outputStream, ObjectMapper objectMapper)
+      throws IOException {
+    return switch (format) {
+      case NDJSON -> new NdjsonUserExportWriter(outputStream, objectMapper);
+      case CSV -> new CsvUserExportWriter(outputStream);
+      case CBOR -> new BinaryUserExportWriter(outputStream, BinaryFormatConfig.cborMapper(objectMapper));
+      case SMILE -> new BinaryUserExportWriter(outputStream, BinaryFormatConfig.smileMapper(objectMapper));
+    };
+  }
+
+  void write(UserDto user) throws IOException;
+
+  /**
+   * Flushes the written users without closing the output stream.
+   *
+   * @throws IOException if the output stream fails
+   */
+  void finish() throws IOException;
+}
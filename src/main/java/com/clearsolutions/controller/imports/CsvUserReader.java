@@ -0,0 +1,138 @@
+package com.clearsolutions.controller.imports;
+
+import com.clearsolutions.service.dto.UserDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Reads users from CSV line by line. The first line is a header with the names of the user fields
+ * in any order, the same format is written by the CSV export. Quoted fields cannot span lines.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public class CsvUserReader implements Iterator<UserDto> {
+
+  private static final char DELIMITER = ',';
+  private static final char QUOTE = '"';
+
+  private final BufferedReader reader;
+  private final Map<String, Integer> columns = new HashMap<>();
+  private String nextLine;
+  private long lineNumber;
+
+  public CsvUserReader(BufferedReader reader) {
+    this.reader = reader;
+    String header = readLine();
+
+    if (nonNull(header)) {
+      List<String> names = parseLine(header);
+
+      for (int i = 0; i < names.size(); i++) {
+        columns.put(names.get(i).trim(), i);
+      }
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (isNull(nextLine)) {
+      String line = readLine();
+
+      if (isNull(line)) {
+        return false;
+      }
+
+      if (!line.isBlank()) {
+        nextLine = line;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public UserDto next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    List<String> fields = parseLine(nextLine);
+    nextLine = null;
+    return UserDto.builder()
+        .email(field(fields, "email"))
+        .firstName(field(fields, "firstName"))
+        .lastName(field(fields, "lastName"))
+        .birthdate(parseBirthdate(field(fields, "birthdate")))
+        .address(field(fields, "address"))
+        .phoneNumber(field(fields, "phoneNumber"))
+        .build();
+  }
+
+  private String readLine() {
+    try {
+      String line = reader.readLine();
+      lineNumber++;
+      return line;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String field(List<String> fields, String name) {
+    Integer column = columns.get(name);
+
+    if (isNull(column) || column >= fields.size() || fields.get(column).isEmpty()) {
+      return null;
+    }
+    return fields.get(column);
+  }
+
+  private LocalDate parseBirthdate(String birthdate) {
+    try {
+      return isNull(birthdate) ? null : LocalDate.parse(birthdate);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Line %s: the birthdate %s is not valid".formatted(lineNumber, birthdate));
+    }
+  }
+
+  private List<String> parseLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+
+    for (int i = 0; i < line.length(); i++) {
+      char symbol = line.charAt(i);
+
+      if (quoted) {
+        if (symbol == QUOTE && i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+          field.append(QUOTE);
+          i++;
+        } else if (symbol == QUOTE) {
+          quoted = false;
+        } else {
+          field.append(symbol);
+        }
+      } else if (symbol == QUOTE) {
+        quoted = true;
+      } else if (symbol == DELIMITER) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(symbol);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
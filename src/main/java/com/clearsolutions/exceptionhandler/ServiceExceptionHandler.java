@@ -1,12 +1,23 @@
 package com.clearsolutions.exceptionhandler;
 
+import com.clearsolutions.exceptionhandler.exceptions.AdmissionRejectedException;
+import com.clearsolutions.exceptionhandler.exceptions.ChangeCursorExpiredException;
 import com.clearsolutions.exceptionhandler.exceptions.EmailNotUniqueException;
 import com.clearsolutions.exceptionhandler.exceptions.NotFoundException;
 import com.clearsolutions.exceptionhandler.exceptions.RestrictionViolationException;
+import com.clearsolutions.exceptionhandler.exceptions.ServiceOverloadedException;
+import com.clearsolutions.exceptionhandler.exceptions.TooManyRequestsException;
+import com.clearsolutions.exceptionhandler.exceptions.UserVersionMismatchException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -29,11 +40,21 @@ public class ServiceExceptionHandler {
   private static final String DETAILS_FIELD = "details";
   private static final String ERROR_CODE_FIELD = "errorCode";
   private static final String TIMESTAMP_FILED = "timestamp";
+  private static final String DATA_CONFLICT_MESSAGE = "The user data conflicts with an existing user";
+  private static final String CONCURRENT_UPDATE_MESSAGE = "The user has been changed concurrently, retry the update";
+  private static final String ERRORS_METRIC = "users.errors";
+  private static final String EXCEPTION_TAG = "exception";
+
+  private final MeterRegistry meterRegistry;
+
+  public ServiceExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+    this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+  }
 
   @ExceptionHandler(ConstraintViolationException.class)
   protected ResponseEntity<Object> handleConstraintViolationException(ConstraintViolationException e) {
     Map<String, String> violationDetails = getConstraintViolationDetails(e);
-    Map<String, Object> responseBody = buildErrorResponseBody(HttpStatus.BAD_REQUEST, violationDetails);
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.BAD_REQUEST, violationDetails);
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseBody);
   }
 
@@ -48,26 +69,68 @@ public class ServiceExceptionHandler {
 
   @ExceptionHandler(TypeMismatchException.class)
   protected ResponseEntity<Object> handleTypeMismatchException(TypeMismatchException e) {
-    Map<String, Object> responseBody = buildErrorResponseBody(HttpStatus.BAD_REQUEST, e.getMessage());
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.BAD_REQUEST, e.getMessage());
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseBody);
   }
 
   @ExceptionHandler(NotFoundException.class)
   protected ResponseEntity<Object> handleNotFoundException(NotFoundException e) {
-    Map<String, Object> responseBody = buildErrorResponseBody(HttpStatus.NOT_FOUND, e.getMessage());
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.NOT_FOUND, e.getMessage());
     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseBody);
   }
 
+  @ExceptionHandler(ChangeCursorExpiredException.class)
+  protected ResponseEntity<Object> handleChangeCursorExpiredException(ChangeCursorExpiredException e) {
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.GONE, e.getMessage());
+    return ResponseEntity.status(HttpStatus.GONE).body(responseBody);
+  }
+
+  @ExceptionHandler(TooManyRequestsException.class)
+  protected ResponseEntity<Object> handleTooManyRequestsException(TooManyRequestsException e) {
+    return buildRejectionResponse(e, HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @ExceptionHandler(ServiceOverloadedException.class)
+  protected ResponseEntity<Object> handleServiceOverloadedException(ServiceOverloadedException e) {
+    return buildRejectionResponse(e, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  private ResponseEntity<Object> buildRejectionResponse(AdmissionRejectedException e, HttpStatus status) {
+    long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+    Map<String, Object> responseBody = buildErrorResponseBody(e, status, e.getMessage());
+    return ResponseEntity.status(status)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body(responseBody);
+  }
+
   @ExceptionHandler(EmailNotUniqueException.class)
   protected ResponseEntity<Object> handleEmailNotUniqueException(EmailNotUniqueException e) {
-    Map<String, Object> responseBody = buildErrorResponseBody(HttpStatus.CONFLICT, e.getMessage());
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.CONFLICT, e.getMessage());
     return ResponseEntity.status(HttpStatus.CONFLICT).body(responseBody);
   }
 
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  protected ResponseEntity<Object> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.CONFLICT, DATA_CONFLICT_MESSAGE);
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(responseBody);
+  }
+
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  protected ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.CONFLICT, CONCURRENT_UPDATE_MESSAGE);
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(responseBody);
+  }
+
+  @ExceptionHandler(UserVersionMismatchException.class)
+  protected ResponseEntity<Object> handleUserVersionMismatchException(UserVersionMismatchException e) {
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.PRECONDITION_FAILED, e.getMessage());
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(responseBody);
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   protected ResponseEntity<Object> handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
     Map<String, String> validationDetails = getMethodArgumentValidationDetails(e);
-    Map<String, Object> responseBody = buildErrorResponseBody(HttpStatus.BAD_REQUEST, validationDetails);
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.BAD_REQUEST, validationDetails);
     return ResponseEntity.status(HttpStatus.BAD_REQUEST.value()).body(responseBody);
   }
 
@@ -80,11 +143,12 @@ public class ServiceExceptionHandler {
 
   @ExceptionHandler(RestrictionViolationException.class)
   protected ResponseEntity<Object> handleRestrictionViolationException(RestrictionViolationException e) {
-    Map<String, Object> responseBody = buildErrorResponseBody(HttpStatus.BAD_REQUEST, e.getMessage());
+    Map<String, Object> responseBody = buildErrorResponseBody(e, HttpStatus.BAD_REQUEST, e.getMessage());
     return ResponseEntity.status(HttpStatus.BAD_REQUEST.value()).body(responseBody);
   }
 
-  private Map<String, Object> buildErrorResponseBody(HttpStatus status, Object message) {
+  private Map<String, Object> buildErrorResponseBody(Exception e, HttpStatus status, Object message) {
+    meterRegistry.counter(ERRORS_METRIC, EXCEPTION_TAG, e.getClass().getSimpleName()).increment();
     Map<String, Object> body = new LinkedHashMap<>();
     body.put(TIMESTAMP_FILED, LocalDateTime.now());
     body.put(ERROR_CODE_FIELD, status.value());
@@ -0,0 +1,16 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public abstract class AdmissionRejectedException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  protected AdmissionRejectedException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+}
@@ -0,0 +1,10 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+public class BatchSizeViolationException extends RestrictionViolationException {
+
+  private static final String MESSAGE = "The batch must contain from 1 to %s users";
+
+  public BatchSizeViolationException(int maxBatchSize) {
+    super(MESSAGE.formatted(maxBatchSize));
+  }
+}
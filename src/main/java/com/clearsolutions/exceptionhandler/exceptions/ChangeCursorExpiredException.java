@@ -0,0 +1,10 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+public class ChangeCursorExpiredException extends RuntimeException {
+
+  private static final String MESSAGE = "The changes after the cursor=%s are pruned, sync from the start";
+
+  public ChangeCursorExpiredException(String cursor) {
+    super(MESSAGE.formatted(cursor));
+  }
+}
@@ -0,0 +1,10 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+public class CursorNotValidException extends RestrictionViolationException {
+
+  private static final String MESSAGE = "The cursor=%s is not valid";
+
+  public CursorNotValidException(String cursor) {
+    super(MESSAGE.formatted(cursor));
+  }
+}
@@ -0,0 +1,10 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+public class PatchNotValidException extends RestrictionViolationException {
+
+  private static final String MESSAGE = "The merge patch must be a JSON object with user properties";
+
+  public PatchNotValidException() {
+    super(MESSAGE);
+  }
+}
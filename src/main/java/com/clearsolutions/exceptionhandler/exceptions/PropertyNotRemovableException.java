@@ -0,0 +1,10 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+public class PropertyNotRemovableException extends RestrictionViolationException {
+
+  private static final String MESSAGE = "The property %s is required and cannot be removed";
+
+  public PropertyNotRemovableException(String property) {
+    super(MESSAGE.formatted(property));
+  }
+}
@@ -0,0 +1,10 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+public class SearchFilterRequiredException extends RestrictionViolationException {
+
+  private static final String MESSAGE = "At least one search parameter is required to delete users by a filter";
+
+  public SearchFilterRequiredException() {
+    super(MESSAGE);
+  }
+}
@@ -0,0 +1,10 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+public class SearchTermNotValidException extends RestrictionViolationException {
+
+  private static final String MESSAGE = "The value of %s must contain at least %s characters";
+
+  public SearchTermNotValidException(String parameter, int minLength) {
+    super(MESSAGE.formatted(parameter, minLength));
+  }
+}
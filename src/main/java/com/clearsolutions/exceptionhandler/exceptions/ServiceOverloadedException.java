@@ -0,0 +1,12 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+import java.time.Duration;
+
+public class ServiceOverloadedException extends AdmissionRejectedException {
+
+  private static final String MESSAGE = "Too many %s requests are being processed, retry later";
+
+  public ServiceOverloadedException(String requestClass, Duration retryAfter) {
+    super(MESSAGE.formatted(requestClass), retryAfter);
+  }
+}
@@ -0,0 +1,12 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+import java.time.Duration;
+
+public class TooManyRequestsException extends AdmissionRejectedException {
+
+  private static final String MESSAGE = "The client %s has exceeded its request rate, retry later";
+
+  public TooManyRequestsException(String clientKey, Duration retryAfter) {
+    super(MESSAGE.formatted(clientKey), retryAfter);
+  }
+}
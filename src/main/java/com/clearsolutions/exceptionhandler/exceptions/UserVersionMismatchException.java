@@ -0,0 +1,12 @@
+package com.clearsolutions.exceptionhandler.exceptions;
+
+import java.util.UUID;
+
+public class UserVersionMismatchException extends RuntimeException {
+
+  private static final String MESSAGE = "User with id=%s does not have the version %s, it has been changed";
+
+  public UserVersionMismatchException(UUID userId, Long version) {
+    super(MESSAGE.formatted(userId, version));
+  }
+}
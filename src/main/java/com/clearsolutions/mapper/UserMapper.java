@@ -1,29 +1,125 @@
 package com.clearsolutions.mapper;
 
 import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.entity.UserChange;
+import com.clearsolutions.repository.projection.UserChangeView;
+import com.clearsolutions.service.dto.UserChangeDto;
 import com.clearsolutions.service.dto.UserDto;
-import com.clearsolutions.service.utils.MapperUtils;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.springframework.beans.BeanUtils;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.nonNull;
 import static org.mapstruct.MappingConstants.ComponentModel;
 
 @Mapper(componentModel = ComponentModel.SPRING)
 public interface UserMapper {
 
+  String EMAIL_PROPERTY = "email";
+  String FIRST_NAME_PROPERTY = "firstName";
+  String LAST_NAME_PROPERTY = "lastName";
+  String BIRTHDATE_PROPERTY = "birthdate";
+  String ADDRESS_PROPERTY = "address";
+  String PHONE_NUMBER_PROPERTY = "phoneNumber";
+  String VERSION_PROPERTY = "version";
+  Set<String> UPDATABLE_PROPERTIES = Set.of(EMAIL_PROPERTY, FIRST_NAME_PROPERTY, LAST_NAME_PROPERTY,
+                                            BIRTHDATE_PROPERTY, ADDRESS_PROPERTY, PHONE_NUMBER_PROPERTY);
+
   User toEntity(UserDto userDto);
 
   UserDto toDto(User user);
 
+  default UserChangeDto toChangeDto(UserChangeView changeView) {
+    UserChange change = changeView.getChange();
+    return new UserChangeDto(change.getId(), change.getType(), change.getUserId(), toDto(changeView.getUser()));
+  }
+
+  @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+  @Mapping(target = VERSION_PROPERTY, ignore = true)
+  void copyNotNullValues(UserDto userDto, @MappingTarget User user);
+
   default User mergeWithDto(UserDto userDto, User user) {
-    BeanUtils.copyProperties(this.toEntity(userDto), user);
+    BeanUtils.copyProperties(this.toEntity(userDto), user, VERSION_PROPERTY);
     return user;
   }
 
   default User updateEntityByNotNullValues(UserDto userDto, User user) {
-    User source = this.toEntity(userDto);
-    String[] ignoreProperties = MapperUtils.definePropertiesWithNullValues(source);
-    BeanUtils.copyProperties(source, user, ignoreProperties);
+    copyNotNullValues(userDto, user);
+    return user;
+  }
+
+  /**
+   * Sets the optional properties to null, e.g. the properties explicitly nulled by a JSON merge patch.
+   *
+   * @param properties - names of optional properties
+   * @param user - a user entity
+   * @return User
+   */
+  default User removeProperties(Set<String> properties, User user) {
+    for (String property : properties) {
+      switch (property) {
+        case ADDRESS_PROPERTY -> user.setAddress(null);
+        case PHONE_NUMBER_PROPERTY -> user.setPhoneNumber(null);
+        default -> throw new IllegalArgumentException("The property %s is not optional".formatted(property));
+      }
+    }
+    return user;
+  }
+
+  /**
+   * Lists the values a DTO sets by property names, e.g. to update a user without loading it.
+   * A null value is a change only if its property is listed as nullable, e.g. every property
+   * for a full update and the removed properties for a merge patch.
+   *
+   * @param userDto - user data
+   * @param nullableProperties - names of properties set to null by null values
+   * @return Map<String, Object>
+   */
+  default Map<String, Object> toChanges(UserDto userDto, Set<String> nullableProperties) {
+    Map<String, Object> changes = new LinkedHashMap<>();
+    putChange(changes, EMAIL_PROPERTY, userDto.getEmail(), nullableProperties);
+    putChange(changes, FIRST_NAME_PROPERTY, userDto.getFirstName(), nullableProperties);
+    putChange(changes, LAST_NAME_PROPERTY, userDto.getLastName(), nullableProperties);
+    putChange(changes, BIRTHDATE_PROPERTY, userDto.getBirthdate(), nullableProperties);
+    putChange(changes, ADDRESS_PROPERTY, userDto.getAddress(), nullableProperties);
+    putChange(changes, PHONE_NUMBER_PROPERTY, userDto.getPhoneNumber(), nullableProperties);
+    return changes;
+  }
+
+  private static void putChange(Map<String, Object> changes, String property, Object value,
+                                Set<String> nullableProperties) {
+    if (nonNull(value) || nullableProperties.contains(property)) {
+      changes.put(property, value);
+    }
+  }
+
+  /**
+   * Sets the values listed by {@link #toChanges(UserDto, Set)} to a user.
+   *
+   * @param changes - values by property names
+   * @param user - a user entity
+   * @return User
+   */
+  default User applyChanges(Map<String, Object> changes, User user) {
+    changes.forEach((property, value) -> {
+      switch (property) {
+        case EMAIL_PROPERTY -> user.setEmail((String) value);
+        case FIRST_NAME_PROPERTY -> user.setFirstName((String) value);
+        case LAST_NAME_PROPERTY -> user.setLastName((String) value);
+        case BIRTHDATE_PROPERTY -> user.setBirthdate((LocalDate) value);
+        case ADDRESS_PROPERTY -> user.setAddress((String) value);
+        case PHONE_NUMBER_PROPERTY -> user.setPhoneNumber((String) value);
+        default -> throw new IllegalArgumentException("The property %s cannot be updated".formatted(property));
+      }
+    });
     return user;
   }
 }
@@ -0,0 +1,10 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.User;
+
+import java.util.List;
+
+public interface UserBatchRepository {
+
+  void insertAll(List<User> users);
+}
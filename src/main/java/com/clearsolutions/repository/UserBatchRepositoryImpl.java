@@ -0,0 +1,43 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.repository.entity.User;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Batch writes which bypass the merge semantics of {@code saveAll}.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@RequiredArgsConstructor
+public class UserBatchRepositoryImpl implements UserBatchRepository {
+
+  private final EntityManager entityManager;
+  private final AppConfig appConfig;
+
+  /**
+   * Persists new users flushing and clearing the persistence context after every chunk,
+   * so the inserts are sent as JDBC batches and the memory does not grow with the number of users.
+   * The users must not have IDs, they are generated on persist.
+   *
+   * @param users - new users
+   */
+  @Override
+  public void insertAll(List<User> users) {
+    int chunkSize = appConfig.getUserBatchChunkSize();
+
+    for (int i = 0; i < users.size(); i++) {
+      entityManager.persist(users.get(i));
+
+      if ((i + 1) % chunkSize == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+  }
+}
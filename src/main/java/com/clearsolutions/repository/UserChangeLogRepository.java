@@ -0,0 +1,11 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.UserChangeType;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface UserChangeLogRepository {
+
+  void append(UserChangeType type, Collection<UUID> userIds);
+}
@@ -0,0 +1,49 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.repository.entity.UserChangeType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Appends events to the user change feed with JDBC batches in the transaction of the user's change,
+ * unlike persisting entities with identity IDs it does not cost a statement per event.
+ * The appending transactions are serialized by a row lock held until their commits, so the change IDs
+ * are taken in the order of the commits and a consumer past a change ID never misses a lower one.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@RequiredArgsConstructor
+public class UserChangeLogRepositoryImpl implements UserChangeLogRepository {
+
+  private static final String LOCK_FEED = "SELECT pruned_through FROM user_change_horizon WHERE id = 1 FOR UPDATE";
+  private static final String INSERT_CHANGE = "INSERT INTO user_changes(user_id, type, occurred_at) VALUES (?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AppConfig appConfig;
+
+  /**
+   * Appends a change event for each user in the given order. The feed stays locked until the end of
+   * the transaction, so the caller appends after the other statements of the transaction.
+   *
+   * @param type - a kind of change
+   * @param userIds - IDs of changed users
+   */
+  @Override
+  public void append(UserChangeType type, Collection<UUID> userIds) {
+    jdbcTemplate.queryForObject(LOCK_FEED, Long.class);
+    OffsetDateTime occurredAt = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    jdbcTemplate.batchUpdate(INSERT_CHANGE, userIds, appConfig.getUserBatchChunkSize(),
+                             (statement, userId) -> {
+                               statement.setObject(1, userId);
+                               statement.setInt(2, type.ordinal());
+                               statement.setObject(3, occurredAt);
+                             });
+  }
+}
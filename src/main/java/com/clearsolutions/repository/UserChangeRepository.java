@@ -0,0 +1,69 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.UserChange;
+import com.clearsolutions.repository.entity.UserChangeType;
+import com.clearsolutions.repository.projection.UserChangeView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UserChangeRepository extends JpaRepository<UserChange, Long>, UserChangeLogRepository {
+
+  /**
+   * Finds the changes following the given one together with the current state of the changed users.
+   * A deleted user is null.
+   *
+   * @param after - the ID of the last change seen by a consumer
+   * @param visibleBefore - the time the changes must have occurred by
+   * @param limit - the maximum number of changes
+   * @return List<UserChangeView>
+   */
+  @Query("""
+      SELECT c AS change, u AS user FROM UserChange c LEFT JOIN User u ON u.id = c.userId
+      WHERE c.id > :after AND c.occurredAt <= :visibleBefore ORDER BY c.id""")
+  List<UserChangeView> findChanges(long after, Instant visibleBefore, Limit limit);
+
+  @Query("SELECT coalesce(max(c.id), 0) FROM UserChange c")
+  long findLastId();
+
+  /**
+   * Finds the last change that has occurred by the given time, e.g. to start following the changes
+   * visible to the consumers of the change feed.
+   *
+   * @param visibleBefore - the time the changes must have occurred by
+   * @return long - the ID of the change, 0 if there are no changes
+   */
+  @Query("SELECT coalesce(max(c.id), 0) FROM UserChange c WHERE c.occurredAt <= :visibleBefore")
+  long findLastIdBefore(Instant visibleBefore);
+
+  /**
+   * Deletes the changes followed by a later change of the same user, since the latter carries
+   * the current state of the user anyway.
+   *
+   * @return int - the number of deleted changes
+   */
+  @Modifying
+  @Query("DELETE FROM UserChange c WHERE c.id < (SELECT max(l.id) FROM UserChange l WHERE l.userId = c.userId)")
+  int deleteSuperseded();
+
+  @Query("SELECT max(c.id) FROM UserChange c WHERE c.type = :type AND c.occurredAt < :before")
+  Long findLastIdByTypeBefore(UserChangeType type, Instant before);
+
+  @Modifying
+  @Query("DELETE FROM UserChange c WHERE c.type = :type AND c.id <= :lastId")
+  int deleteByTypeThrough(UserChangeType type, long lastId);
+
+  @Query(value = "SELECT pruned_through FROM user_change_horizon WHERE id = 1", nativeQuery = true)
+  long findPrunedThrough();
+
+  @Modifying
+  @Query(value = "UPDATE user_change_horizon SET pruned_through = GREATEST(pruned_through, :lastId) WHERE id = 1",
+         nativeQuery = true)
+  void advancePrunedThrough(long lastId);
+}
@@ -0,0 +1,14 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.projection.DeletedUser;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface UserDeleteRepository {
+
+  List<DeletedUser> deleteAllByIdReturning(Collection<UUID> ids);
+
+  void evictFromCache(Collection<UUID> ids);
+}
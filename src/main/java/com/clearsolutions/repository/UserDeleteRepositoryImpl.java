@@ -0,0 +1,64 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.projection.DeletedUser;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deletes users with one set-based statement instead of loading every user before removing it.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@RequiredArgsConstructor
+public class UserDeleteRepositoryImpl implements UserDeleteRepository {
+
+  private static final String DELETE_USERS = "SELECT id, birthdate FROM OLD TABLE (DELETE FROM users WHERE id IN (%s))";
+  private static final String PARAMETER = "?";
+  private static final String PARAMETER_DELIMITER = ", ";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManager entityManager;
+
+  /**
+   * Deletes the users with a single statement that returns the deleted rows, so the caller learns
+   * which users existed and their birthdates without a query of its own. The statement bypasses
+   * the persistence context, the deleted users are evicted from the second-level cache right away,
+   * the caller evicts them once more after the commit, see {@link #evictFromCache(Collection)}.
+   *
+   * @param ids - IDs of the users to delete, a chunk of a reasonable size
+   * @return List<DeletedUser> - the users that existed and have been deleted
+   */
+  @Override
+  public List<DeletedUser> deleteAllByIdReturning(Collection<UUID> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    String parameters = String.join(PARAMETER_DELIMITER, Collections.nCopies(ids.size(), PARAMETER));
+    List<DeletedUser> deletedUsers = jdbcTemplate.query(
+        DELETE_USERS.formatted(parameters),
+        (resultSet, rowNumber) -> new DeletedUser(resultSet.getObject(1, UUID.class),
+                                                  resultSet.getObject(2, LocalDate.class)),
+        ids.toArray());
+    evictFromCache(deletedUsers.stream().map(DeletedUser::id).toList());
+    return deletedUsers;
+  }
+
+  /**
+   * Evicts the users from the second-level cache. Called after the commit of a delete as well,
+   * so that a load racing with the delete does not keep a deleted user cached.
+   *
+   * @param ids - IDs of deleted users
+   */
+  @Override
+  public void evictFromCache(Collection<UUID> ids) {
+    ids.forEach(id -> entityManager.getEntityManagerFactory().getCache().evict(User.class, id));
+  }
+}
@@ -1,14 +1,47 @@
 package com.clearsolutions.repository;
 
 import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.projection.BirthYearCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificationExecutor<User> {
+public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificationExecutor<User>,
+    UserSearchRepository, UserBatchRepository, UserTrigramRepository, UserDeleteRepository, UserUpdateRepository {
+
+  /**
+   * Finds a user in the second-level cache or in a database. Unlike the inherited method it does not
+   * start a transaction of its own, so a cache hit outside a transaction does not take a connection.
+   *
+   * @param id - a user ID
+   * @return Optional<User>
+   */
+  @Override
+  @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+  Optional<User> findById(UUID id);
 
   boolean existsByEmail(String email);
+
+  @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+  List<String> findExistingEmails(Collection<String> emails);
+
+  @Query("SELECT u.email FROM User u")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  Stream<String> streamAllEmails();
+
+  @Query("SELECT year(u.birthdate) AS year, count(u) AS count FROM User u GROUP BY year(u.birthdate)")
+  List<BirthYearCount> countByBirthYear();
 }
@@ -0,0 +1,24 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.service.dto.UserDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface UserSearchRepository {
+
+  Page<UserDto> findDtoPage(Specification<User> specification, Pageable pageable);
+
+  Slice<UserDto> findDtoSlice(Specification<User> specification, Pageable pageable);
+
+  Stream<User> streamAll(Specification<User> specification, Sort sort);
+
+  List<UUID> findIds(Specification<User> specification, UUID after, int limit);
+}
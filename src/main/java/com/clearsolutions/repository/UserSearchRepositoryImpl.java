@@ -0,0 +1,185 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.entity.User_;
+import com.clearsolutions.service.dto.UserDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Search queries which are not covered by the derived and specification queries of Spring Data.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@RequiredArgsConstructor
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+  private static final String ID_ATTRIBUTE = "id";
+  private static final String EMAIL_ATTRIBUTE = "email";
+  private static final String FIRST_NAME_ATTRIBUTE = "firstName";
+  private static final String LAST_NAME_ATTRIBUTE = "lastName";
+  private static final String BIRTHDATE_ATTRIBUTE = "birthdate";
+  private static final String ADDRESS_ATTRIBUTE = "address";
+  private static final String PHONE_NUMBER_ATTRIBUTE = "phoneNumber";
+  private static final String VERSION_ATTRIBUTE = "version";
+
+  private final EntityManager entityManager;
+  private final AppConfig appConfig;
+
+  /**
+   * Selects users directly into DTOs with a constructor expression, so no entity is managed, snapshotted
+   * for dirty checking or mapped afterwards. The query runs in a read-only transaction which never flushes.
+   * The count query is skipped if the page is the last one.
+   *
+   * @param specification - search predicates
+   * @param pageable - page settings
+   * @return Page<UserDto>
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Page<UserDto> findDtoPage(Specification<User> specification, Pageable pageable) {
+    TypedQuery<UserDto> dtoQuery = createDtoQuery(specification, pageable.getSort());
+
+    if (pageable.isPaged()) {
+      dtoQuery.setFirstResult((int) pageable.getOffset())
+          .setMaxResults(pageable.getPageSize());
+    }
+    return PageableExecutionUtils.getPage(dtoQuery.getResultList(), pageable, () -> count(specification));
+  }
+
+  /**
+   * Selects users directly into DTOs like {@link #findDtoPage(Specification, Pageable)} but instead of
+   * a count query fetches one row more than the page size, so the result only knows whether there is a next page.
+   *
+   * @param specification - search predicates
+   * @param pageable - page settings
+   * @return Slice<UserDto>
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Slice<UserDto> findDtoSlice(Specification<User> specification, Pageable pageable) {
+    int pageSize = pageable.getPageSize();
+    List<UserDto> users = createDtoQuery(specification, pageable.getSort())
+        .setFirstResult((int) pageable.getOffset())
+        .setMaxResults(pageSize + 1)
+        .getResultList();
+    boolean hasNext = users.size() > pageSize;
+    return new SliceImpl<>(hasNext ? users.subList(0, pageSize) : users, pageable, hasNext);
+  }
+
+  private TypedQuery<UserDto> createDtoQuery(Specification<User> specification, Sort sort) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<UserDto> dtoQuery = criteriaBuilder.createQuery(UserDto.class);
+    Root<User> userRoot = dtoQuery.from(User.class);
+    dtoQuery.select(criteriaBuilder.construct(UserDto.class,
+                                              userRoot.get(ID_ATTRIBUTE),
+                                              userRoot.get(EMAIL_ATTRIBUTE),
+                                              userRoot.get(FIRST_NAME_ATTRIBUTE),
+                                              userRoot.get(LAST_NAME_ATTRIBUTE),
+                                              userRoot.get(BIRTHDATE_ATTRIBUTE),
+                                              userRoot.get(ADDRESS_ATTRIBUTE),
+                                              userRoot.get(PHONE_NUMBER_ATTRIBUTE),
+                                              userRoot.get(VERSION_ATTRIBUTE)));
+    dtoQuery.where(specification.toPredicate(userRoot, dtoQuery, criteriaBuilder));
+    dtoQuery.orderBy(QueryUtils.toOrders(sort, userRoot, criteriaBuilder));
+    return entityManager.createQuery(dtoQuery)
+        .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+  }
+
+  private long count(Specification<User> specification) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
+    Root<User> userRoot = countQuery.from(User.class);
+    countQuery.select(criteriaBuilder.count(userRoot));
+    countQuery.where(specification.toPredicate(userRoot, countQuery, criteriaBuilder));
+    return entityManager.createQuery(countQuery)
+        .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+        .getSingleResult();
+  }
+
+  /**
+   * Runs the query as one forward-only read-only cursor fetching rows in chunks of the configured size.
+   * Every user is detached from the persistence context before it is handed over, so the memory
+   * does not grow with the number of rows, and it is not put into the second-level cache so an export
+   * does not evict the hot users. The stream must be closed after use.
+   *
+   * @param specification - search predicates
+   * @param sort - order of users
+   * @return Stream<User>
+   */
+  @Override
+  public Stream<User> streamAll(Specification<User> specification, Sort sort) {
+    return entityManager.createQuery(buildQuery(specification, sort))
+        .setHint(HibernateHints.HINT_FETCH_SIZE, appConfig.getUserExportFetchSize())
+        .setHint(HibernateHints.HINT_READ_ONLY, true)
+        .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+        .getResultStream()
+        .peek(entityManager::detach);
+  }
+
+  /**
+   * Finds the IDs of matching users in the order of IDs, a chunk after the given ID.
+   *
+   * @param specification - search predicates
+   * @param after - the last ID of the previous chunk, null for the first chunk
+   * @param limit - the maximum number of IDs
+   * @return List<UUID>
+   */
+  @Override
+  public List<UUID> findIds(Specification<User> specification, UUID after, int limit) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<UUID> idQuery = criteriaBuilder.createQuery(UUID.class);
+    Root<User> userRoot = idQuery.from(User.class);
+    Path<UUID> id = userRoot.get(User_.id);
+    Predicate predicate = specification.toPredicate(userRoot, idQuery, criteriaBuilder);
+
+    if (nonNull(after)) {
+      Predicate afterPredicate = criteriaBuilder.greaterThan(id, after);
+      predicate = isNull(predicate) ? afterPredicate : criteriaBuilder.and(predicate, afterPredicate);
+    }
+
+    if (nonNull(predicate)) {
+      idQuery.where(predicate);
+    }
+    idQuery.select(id).orderBy(criteriaBuilder.asc(id));
+    return entityManager.createQuery(idQuery)
+        .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  private CriteriaQuery<User> buildQuery(Specification<User> specification, Sort sort) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<User> userQuery = criteriaBuilder.createQuery(User.class);
+    Root<User> userRoot = userQuery.from(User.class);
+    userQuery.where(specification.toPredicate(userRoot, userQuery, criteriaBuilder));
+    userQuery.orderBy(QueryUtils.toOrders(sort, userRoot, criteriaBuilder));
+    return userQuery;
+  }
+}
@@ -0,0 +1,17 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface UserTrigramRepository {
+
+  void indexAll(Collection<User> users);
+
+  void reindex(User user);
+
+  void unindex(UUID userId);
+
+  void unindexAll(Collection<UUID> userIds);
+}
@@ -0,0 +1,105 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.repository.entity.TrigramField;
+import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.trigram.Trigrams;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Maintains the trigram index of users' emails and names used by substring and prefix search.
+ * The index is written with JDBC batches in the transaction of the user's change.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@RequiredArgsConstructor
+public class UserTrigramRepositoryImpl implements UserTrigramRepository {
+
+  private static final String INSERT_TRIGRAM = "INSERT INTO user_trigrams(field, trigram, user_id) VALUES (?, ?, ?)";
+  private static final String DELETE_TRIGRAMS = "DELETE FROM user_trigrams WHERE user_id = ?";
+  private static final String DELETE_TRIGRAMS_OF_USERS = "DELETE FROM user_trigrams WHERE user_id IN (%s)";
+  private static final String PARAMETER = "?";
+  private static final String PARAMETER_DELIMITER = ", ";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AppConfig appConfig;
+
+  /**
+   * Indexes new users.
+   *
+   * @param users - new users with generated IDs
+   */
+  @Override
+  public void indexAll(Collection<User> users) {
+    List<Object[]> trigrams = new ArrayList<>();
+    users.forEach(user -> addTrigrams(user, trigrams));
+    jdbcTemplate.batchUpdate(INSERT_TRIGRAM, trigrams, appConfig.getUserBatchChunkSize(),
+                             (statement, trigram) -> {
+                               statement.setObject(1, trigram[0]);
+                               statement.setObject(2, trigram[1]);
+                               statement.setObject(3, trigram[2]);
+                             });
+  }
+
+  /**
+   * Replaces the trigrams of an updated user.
+   *
+   * @param user - an updated user
+   */
+  @Override
+  public void reindex(User user) {
+    unindex(user.getId());
+    indexAll(List.of(user));
+  }
+
+  /**
+   * Removes the trigrams of a deleted user.
+   *
+   * @param userId - an ID of a deleted user
+   */
+  @Override
+  public void unindex(UUID userId) {
+    jdbcTemplate.update(DELETE_TRIGRAMS, userId);
+  }
+
+  /**
+   * Removes the trigrams of deleted users with one statement.
+   *
+   * @param userIds - IDs of deleted users, a chunk of a reasonable size
+   */
+  @Override
+  public void unindexAll(Collection<UUID> userIds) {
+    if (userIds.isEmpty()) {
+      return;
+    }
+    String parameters = String.join(PARAMETER_DELIMITER, Collections.nCopies(userIds.size(), PARAMETER));
+    jdbcTemplate.update(DELETE_TRIGRAMS_OF_USERS.formatted(parameters), userIds.toArray());
+  }
+
+  private void addTrigrams(User user, List<Object[]> trigrams) {
+    for (String trigram : trigramsOf(user.getEmail())) {
+      trigrams.add(new Object[] {TrigramField.EMAIL.ordinal(), trigram, user.getId()});
+    }
+    Set<String> nameTrigrams = new LinkedHashSet<>(trigramsOf(user.getFirstName()));
+    nameTrigrams.addAll(trigramsOf(user.getLastName()));
+
+    for (String trigram : nameTrigrams) {
+      trigrams.add(new Object[] {TrigramField.NAME.ordinal(), trigram, user.getId()});
+    }
+  }
+
+  private static Set<String> trigramsOf(String value) {
+    return isNull(value) ? Set.of() : Trigrams.ofValue(value);
+  }
+}
@@ -0,0 +1,12 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.User;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UserUpdateRepository {
+
+  Optional<User> updateIfVersionReturningOld(UUID id, long version, Map<String, Object> changes);
+}
@@ -0,0 +1,84 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.entity.User_;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Updates a user of a known version with one statement instead of loading the user before the update.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@RequiredArgsConstructor
+public class UserUpdateRepositoryImpl implements UserUpdateRepository {
+
+  private static final String UPDATE_USER = """
+      SELECT id, email, first_name, last_name, birthdate, address, phone_number, version
+      FROM OLD TABLE (UPDATE users SET %s version = version + 1 WHERE id = ? AND version = ?)""";
+  private static final String ASSIGNMENT = "%s = ?, ";
+  private static final Map<String, String> COLUMNS = Map.of(User_.EMAIL, "email",
+                                                            User_.FIRST_NAME, "first_name",
+                                                            User_.LAST_NAME, "last_name",
+                                                            User_.BIRTHDATE, "birthdate",
+                                                            User_.ADDRESS, "address",
+                                                            User_.PHONE_NUMBER, "phone_number");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManager entityManager;
+
+  /**
+   * Updates the changed columns of the user if the user still has the given version, the version
+   * is incremented by the same statement. The statement returns the row as it was before the update,
+   * so the caller learns the previous state without a query of its own. It bypasses the persistence
+   * context, the user is evicted from the second-level cache right away, the caller evicts it once more
+   * after the commit or the rollback, see {@link UserDeleteRepository#evictFromCache(java.util.Collection)}.
+   *
+   * @param id - a user ID
+   * @param version - the version the user must have
+   * @param changes - new values by property names, not empty
+   * @return Optional<User> - the user before the update, empty if there is no user with the ID and version
+   */
+  @Override
+  public Optional<User> updateIfVersionReturningOld(UUID id, long version, Map<String, Object> changes) {
+    StringBuilder assignments = new StringBuilder();
+    List<Object> parameters = new ArrayList<>();
+
+    changes.forEach((property, value) -> {
+      String column = COLUMNS.get(property);
+
+      if (isNull(column)) {
+        throw new IllegalArgumentException("The property %s cannot be updated".formatted(property));
+      }
+      assignments.append(ASSIGNMENT.formatted(column));
+      parameters.add(value);
+    });
+    parameters.add(id);
+    parameters.add(version);
+    List<User> previousUsers = jdbcTemplate.query(
+        UPDATE_USER.formatted(assignments),
+        (resultSet, rowNumber) -> User.builder()
+            .id(resultSet.getObject(1, UUID.class))
+            .email(resultSet.getString(2))
+            .firstName(resultSet.getString(3))
+            .lastName(resultSet.getString(4))
+            .birthdate(resultSet.getObject(5, LocalDate.class))
+            .address(resultSet.getString(6))
+            .phoneNumber(resultSet.getString(7))
+            .version(resultSet.getLong(8))
+            .build(),
+        parameters.toArray());
+    entityManager.getEntityManagerFactory().getCache().evict(User.class, id);
+    return previousUsers.stream().findFirst();
+  }
+}
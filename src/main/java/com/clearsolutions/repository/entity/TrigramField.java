@@ -0,0 +1,10 @@
+package com.clearsolutions.repository.entity;
+
+/**
+ * A user's data indexed by trigrams, the name covers both the first and the last name.
+ * The ordinal is stored in the database, so new values must be appended.
+ */
+public enum TrigramField {
+  EMAIL,
+  NAME
+}
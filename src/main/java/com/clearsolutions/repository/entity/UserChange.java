@@ -0,0 +1,41 @@
+package com.clearsolutions.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An event of the user change feed, i.e. the transactional outbox written together with a user.
+ * The table is written with plain JDBC by the write paths, the ID orders the events.
+ */
+@Entity
+@Table(name = "user_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChange {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "user_id")
+  private UUID userId;
+
+  @Enumerated(EnumType.ORDINAL)
+  private UserChangeType type;
+
+  @Column(name = "occurred_at")
+  private Instant occurredAt;
+}
@@ -0,0 +1,11 @@
+package com.clearsolutions.repository.entity;
+
+/**
+ * A kind of change of a user recorded in the change feed.
+ * The ordinal is stored in the database, so new values must be appended.
+ */
+public enum UserChangeType {
+  CREATED,
+  UPDATED,
+  DELETED
+}
@@ -0,0 +1,49 @@
+package com.clearsolutions.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * A trigram of a user's email or name. The table is written with plain JDBC by the write paths
+ * and is only mapped to be queried in search subqueries.
+ */
+@Entity
+@Table(name = "user_trigrams")
+@IdClass(UserTrigram.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTrigram {
+
+  @Id
+  @Enumerated(EnumType.ORDINAL)
+  private TrigramField field;
+
+  @Id
+  private String trigram;
+
+  @Id
+  @Column(name = "user_id")
+  private UUID userId;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+
+    private TrigramField field;
+    private String trigram;
+    private UUID userId;
+  }
+}
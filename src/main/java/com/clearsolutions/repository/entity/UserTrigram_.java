@@ -0,0 +1,14 @@
+package com.clearsolutions.repository.entity;
+
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.StaticMetamodel;
+
+import java.util.UUID;
+
+@StaticMetamodel(UserTrigram.class)
+public class UserTrigram_ {
+
+  public static volatile SingularAttribute<UserTrigram, TrigramField> field;
+  public static volatile SingularAttribute<UserTrigram, String> trigram;
+  public static volatile SingularAttribute<UserTrigram, UUID> userId;
+}
@@ -9,6 +9,15 @@ import java.util.UUID;
 @StaticMetamodel(User.class)
 public class User_ {
 
+  public static final String ID = "id";
+  public static final String EMAIL = "email";
+  public static final String FIRST_NAME = "firstName";
+  public static final String LAST_NAME = "lastName";
+  public static final String BIRTHDATE = "birthdate";
+  public static final String ADDRESS = "address";
+  public static final String PHONE_NUMBER = "phoneNumber";
+  public static final String VERSION = "version";
+
   public static volatile SingularAttribute<User, UUID> id;
   public static volatile SingularAttribute<User, String> email;
   public static volatile SingularAttribute<User, String> firstName;
@@ -16,4 +25,5 @@ public class User_ {
   public static volatile SingularAttribute<User, LocalDate> birthdate;
   public static volatile SingularAttribute<User, String> address;
   public static volatile SingularAttribute<User, String> phoneNumber;
+  public static volatile SingularAttribute<User, Long> version;
 }
@@ -0,0 +1,8 @@
+package com.clearsolutions.repository.projection;
+
+public interface BirthYearCount {
+
+  Integer getYear();
+
+  Long getCount();
+}
@@ -0,0 +1,12 @@
+package com.clearsolutions.repository.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * The ID and the birthdate of a deleted user, enough to invalidate what depended on the user.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public record DeletedUser(UUID id, LocalDate birthdate) {
+}
@@ -0,0 +1,11 @@
+package com.clearsolutions.repository.projection;
+
+import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.entity.UserChange;
+
+public interface UserChangeView {
+
+  UserChange getChange();
+
+  User getUser();
+}
@@ -0,0 +1,52 @@
+package com.clearsolutions.repository.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes connections of read-only transactions to the replicas whose lag is within the tolerance,
+ * in turn, and all other connections to the primary database. Reads of a request that has already
+ * written go to the primary as well. The routing decision depends on the transaction attributes,
+ * so this data source must be wrapped into a lazy connection proxy that fetches the connection
+ * after the transaction has been started.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  public static final String PRIMARY = "primary";
+
+  private final List<String> replicas;
+  private final ReplicaLagMonitor replicaLagMonitor;
+  private final AtomicInteger nextReplica = new AtomicInteger();
+
+  public ReadWriteRoutingDataSource(List<String> replicas, ReplicaLagMonitor replicaLagMonitor) {
+    this.replicas = replicas;
+    this.replicaLagMonitor = replicaLagMonitor;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (TransactionSynchronizationManager.isActualTransactionActive()) {
+        ReadYourWrites.markWritten();
+      }
+      return PRIMARY;
+    }
+
+    if (ReadYourWrites.hasWritten()) {
+      return PRIMARY;
+    }
+    List<String> availableReplicas = replicas.stream()
+        .filter(replicaLagMonitor::isWithinTolerance)
+        .toList();
+
+    if (availableReplicas.isEmpty()) {
+      return PRIMARY;
+    }
+    return availableReplicas.get(Math.floorMod(nextReplica.getAndIncrement(), availableReplicas.size()));
+  }
+}
@@ -0,0 +1,34 @@
+package com.clearsolutions.repository.routing;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Remembers that the current HTTP request has written to the primary database, so that its later
+ * reads are not routed to a replica that may not have received the write yet.
+ * Outside of a request nothing is remembered.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public final class ReadYourWrites {
+
+  private static final String WRITTEN_ATTRIBUTE = ReadYourWrites.class.getName() + ".WRITTEN";
+
+  private ReadYourWrites() {
+  }
+
+  public static void markWritten() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+    if (nonNull(attributes)) {
+      attributes.setAttribute(WRITTEN_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+
+  public static boolean hasWritten() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return nonNull(attributes) && nonNull(attributes.getAttribute(WRITTEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+  }
+}
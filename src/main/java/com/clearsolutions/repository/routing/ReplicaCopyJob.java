@@ -0,0 +1,119 @@
+package com.clearsolutions.repository.routing;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copies the primary database to local replica databases periodically, a stand-in for the replication
+ * of a database server, so that a replica lags behind the primary like a real one. The tables are read
+ * in one snapshot of the primary and replace all the rows of a replica in one transaction, the readers
+ * of the replica see either the previous copy or the new one. The heartbeat is copied as well,
+ * so the lag measured by {@link ReplicaLagMonitor} is the age of the last copy.
+ * Meant for local development, every copy transfers the whole database.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Log4j2
+public class ReplicaCopyJob {
+
+  private static final String FIND_TABLES = """
+      SELECT table_name FROM information_schema.tables
+      WHERE table_schema = 'PUBLIC' AND table_type = 'BASE TABLE' AND table_name <> 'flyway_schema_history'""";
+  private static final String DELETE_ALL = "DELETE FROM %s";
+  private static final String SELECT_ALL = "SELECT * FROM %s";
+  private static final String INSERT = "INSERT INTO %s (%s) VALUES (%s)";
+  private static final int BATCH_SIZE = 1000;
+
+  private final JdbcTemplate primary;
+  private final TransactionTemplate primarySnapshot;
+  private final List<DataSource> replicas;
+
+  public ReplicaCopyJob(DataSource primary, List<DataSource> replicas) {
+    this.primary = new JdbcTemplate(primary);
+    this.primarySnapshot = new TransactionTemplate(new DataSourceTransactionManager(primary));
+    this.primarySnapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.primarySnapshot.setReadOnly(true);
+    this.replicas = replicas;
+  }
+
+  @Scheduled(initialDelayString = "${application.replica-copy-interval}",
+             fixedDelayString = "${application.replica-copy-interval}")
+  public void copy() {
+    for (DataSource replica : replicas) {
+      try {
+        primarySnapshot.executeWithoutResult(status -> copyTo(replica));
+      } catch (DataAccessException e) {
+        log.warn("The primary database has not been copied to a replica", e);
+      }
+    }
+  }
+
+  private void copyTo(DataSource replica) {
+    JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+    List<String> tables = primary.queryForList(FIND_TABLES, String.class);
+    new TransactionTemplate(new DataSourceTransactionManager(replica))
+        .executeWithoutResult(status -> tables.forEach(table -> copyTable(table, replicaTemplate)));
+  }
+
+  private void copyTable(String table, JdbcTemplate replica) {
+    replica.update(DELETE_ALL.formatted(table));
+    ResultSetExtractor<Void> rowCopier = resultSet -> insertRows(table, resultSet, replica);
+    primary.query(SELECT_ALL.formatted(table), rowCopier);
+  }
+
+  private Void insertRows(String table, ResultSet resultSet, JdbcTemplate replica) throws SQLException {
+    ResultSetMetaData metaData = resultSet.getMetaData();
+    int columnCount = metaData.getColumnCount();
+    List<String> columns = new ArrayList<>(columnCount);
+
+    for (int column = 1; column <= columnCount; column++) {
+      columns.add(metaData.getColumnName(column));
+    }
+    String insert = INSERT.formatted(table, String.join(", ", columns),
+                                     String.join(", ", Collections.nCopies(columnCount, "?")));
+    List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+
+    while (resultSet.next()) {
+      Object[] row = new Object[columnCount];
+
+      for (int column = 1; column <= columnCount; column++) {
+        row[column - 1] = resultSet.getObject(column);
+      }
+      batch.add(row);
+
+      if (batch.size() == BATCH_SIZE) {
+        replica.batchUpdate(insert, batch);
+        batch.clear();
+      }
+    }
+
+    if (!batch.isEmpty()) {
+      replica.batchUpdate(insert, batch);
+    }
+    return null;
+  }
+
+  @PreDestroy
+  public void close() throws Exception {
+    for (DataSource replica : replicas) {
+      if (replica instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.clearsolutions.repository.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Measures the replication lag of each replica with a heartbeat: the current time is written to the
+ * primary database periodically and the lag of a replica is the age of the time it has replicated.
+ * A replica whose lag is unknown, e.g. before the first heartbeat or after a failed check,
+ * is considered to be out of the tolerance.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Log4j2
+public class ReplicaLagMonitor {
+
+  private static final String WRITE_HEARTBEAT = "UPDATE replication_heartbeat SET beat = ? WHERE id = 1";
+  private static final String READ_HEARTBEAT = "SELECT beat FROM replication_heartbeat WHERE id = 1";
+  private static final String LAG_METRIC = "users.datasource.replica.lag";
+  private static final String REPLICA_TAG = "replica";
+
+  private final JdbcTemplate primary;
+  private final Map<String, DataSource> replicas;
+  private final Duration lagTolerance;
+  private final Map<String, Duration> lags = new ConcurrentHashMap<>();
+
+  public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, Duration lagTolerance,
+                           MeterRegistry meterRegistry) {
+    this.primary = new JdbcTemplate(primary);
+    this.replicas = replicas;
+    this.lagTolerance = lagTolerance;
+    replicas.keySet().forEach(replica -> Gauge.builder(LAG_METRIC, () -> lagMillis(replica))
+        .tag(REPLICA_TAG, replica)
+        .baseUnit("milliseconds")
+        .register(meterRegistry));
+  }
+
+  public Map<String, DataSource> getReplicas() {
+    return replicas;
+  }
+
+  @Scheduled(fixedDelayString = "${application.replica-heartbeat-interval}")
+  public void checkLags() {
+    Instant now = Instant.now();
+    primary.update(WRITE_HEARTBEAT, Timestamp.from(now));
+    replicas.forEach((replica, dataSource) -> checkLag(replica, dataSource, now));
+  }
+
+  private void checkLag(String replica, DataSource dataSource, Instant now) {
+    try {
+      Timestamp beat = new JdbcTemplate(dataSource).queryForObject(READ_HEARTBEAT, Timestamp.class);
+      lags.put(replica, nonNull(beat) ? Duration.between(beat.toInstant(), now) : Duration.ofMillis(Long.MAX_VALUE));
+    } catch (DataAccessException e) {
+      log.warn("The lag of the replica %s cannot be checked".formatted(replica), e);
+      lags.remove(replica);
+    }
+  }
+
+  private long lagMillis(String replica) {
+    return lags.getOrDefault(replica, Duration.ZERO).toMillis();
+  }
+
+  /**
+   * Checks if the last measured lag of the replica does not exceed the tolerance.
+   *
+   * @param replica - a replica name
+   * @return boolean
+   */
+  public boolean isWithinTolerance(String replica) {
+    Duration lag = lags.get(replica);
+    return nonNull(lag) && lag.compareTo(lagTolerance) <= 0;
+  }
+
+  @PreDestroy
+  public void close() throws Exception {
+    for (DataSource replica : replicas.values()) {
+      if (replica instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+}
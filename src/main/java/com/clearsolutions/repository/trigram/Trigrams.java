@@ -0,0 +1,73 @@
+package com.clearsolutions.repository.trigram;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into trigrams, i.e. all substrings of three characters, for substring search.
+ * Indexed values are anchored with {@link #START} and {@link #END}, so a prefix can be looked up
+ * by the anchored trigrams and a value shorter than three characters still has a trigram.
+ * The splitting must stay the same as in the migration that filled the index.
+ *
+ * @author Oleksandr Semenchenko
+ */
+public final class Trigrams {
+
+  public static final int LENGTH = 3;
+  public static final String START = "^";
+  public static final String END = "$";
+
+  private Trigrams() {
+  }
+
+  /**
+   * Normalizes a search term the way the indexed values are lowercased.
+   *
+   * @param term - a search term
+   * @return String
+   */
+  public static String normalize(String term) {
+    return term.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Returns trigrams of an indexed value.
+   *
+   * @param value - an email or a name
+   * @return Set<String>
+   */
+  public static Set<String> ofValue(String value) {
+    return of(START + value.toLowerCase(Locale.ROOT) + END);
+  }
+
+  /**
+   * Returns trigrams which all are contained by values starting with the prefix.
+   * A single character prefix has none.
+   *
+   * @param prefix - a normalized prefix
+   * @return Set<String>
+   */
+  public static Set<String> ofPrefix(String prefix) {
+    return of(START + prefix);
+  }
+
+  /**
+   * Returns trigrams which all are contained by values containing the term.
+   *
+   * @param term - a normalized term of at least three characters
+   * @return Set<String>
+   */
+  public static Set<String> ofTerm(String term) {
+    return of(term);
+  }
+
+  private static Set<String> of(String text) {
+    Set<String> trigrams = new LinkedHashSet<>();
+
+    for (int i = 0; i + LENGTH <= text.length(); i++) {
+      trigrams.add(text.substring(i, i + LENGTH));
+    }
+    return trigrams;
+  }
+}
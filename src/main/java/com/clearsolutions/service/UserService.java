@@ -1,21 +1,51 @@
 package com.clearsolutions.service;
 
+import com.clearsolutions.service.dto.BatchResult;
+import com.clearsolutions.service.dto.CursorPage;
+import com.clearsolutions.service.dto.UserChangeDto;
 import com.clearsolutions.service.dto.UserDto;
 import com.clearsolutions.service.specification.SearchFilter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface UserService {
 
   UserDto createUser(UserDto user);
 
+  UserDto getUserById(UUID userId);
+
+  BatchResult createUsers(List<UserDto> users);
+
   Page<UserDto> searchUsers(SearchFilter searchFilter, Pageable pageable);
 
+  Page<UserDto> searchUsersWithEstimatedCount(SearchFilter searchFilter, Pageable pageable);
+
+  Slice<UserDto> searchUsersWithoutCount(SearchFilter searchFilter, Pageable pageable);
+
+  CursorPage<UserDto> scrollUsers(SearchFilter searchFilter, String cursor, int size);
+
+  void verifySearchFilter(SearchFilter searchFilter);
+
+  void exportUsers(SearchFilter searchFilter, Consumer<UserDto> consumer);
+
+  CursorPage<UserChangeDto> getUserChanges(String after, int size);
+
   void deleteUserById(UUID userId);
 
+  int deleteUsers(Collection<UUID> userIds);
+
+  List<UUID> findUserIds(SearchFilter searchFilter, UUID after, int limit);
+
   UserDto updateUser(UserDto user);
 
   UserDto updateUserPartially(UserDto user);
+
+  UserDto updateUserPartially(UserDto user, Set<String> removedProperties);
 }
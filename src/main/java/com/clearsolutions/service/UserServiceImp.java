@@ -1,60 +1,115 @@
 package com.clearsolutions.service;
 
 import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.exceptionhandler.exceptions.BatchSizeViolationException;
+import com.clearsolutions.exceptionhandler.exceptions.ChangeCursorExpiredException;
+import com.clearsolutions.exceptionhandler.exceptions.CursorNotValidException;
 import com.clearsolutions.exceptionhandler.exceptions.EmailNotUniqueException;
 import com.clearsolutions.exceptionhandler.exceptions.PeriodNotValidException;
+import com.clearsolutions.exceptionhandler.exceptions.PropertyNotRemovableException;
+import com.clearsolutions.exceptionhandler.exceptions.SearchTermNotValidException;
 import com.clearsolutions.exceptionhandler.exceptions.UserAgeViolationException;
 import com.clearsolutions.exceptionhandler.exceptions.UserNotFoundException;
+import com.clearsolutions.exceptionhandler.exceptions.UserVersionMismatchException;
 import com.clearsolutions.mapper.UserMapper;
+import com.clearsolutions.repository.UserChangeRepository;
 import com.clearsolutions.repository.UserRepository;
 import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.entity.UserChangeType;
+import com.clearsolutions.repository.projection.DeletedUser;
+import com.clearsolutions.repository.trigram.Trigrams;
+import com.clearsolutions.service.cache.UserSearchCache;
+import com.clearsolutions.service.changes.UserChangeBroadcaster;
+import com.clearsolutions.service.dto.BatchItemResult;
+import com.clearsolutions.service.dto.BatchResult;
+import com.clearsolutions.service.dto.CursorPage;
+import com.clearsolutions.service.dto.UserChangeDto;
 import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.index.EmailFilter;
 import com.clearsolutions.service.specification.SearchFilter;
+import com.clearsolutions.service.specification.UserCursor;
 import com.clearsolutions.service.specification.UserSpecification;
+import com.clearsolutions.service.statistics.BirthYearHistogram;
+import com.clearsolutions.service.utils.TransactionUtils;
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static org.springframework.util.StringUtils.hasText;
 
 /**
- * The service class for the user entity.
+ * The service class for the user entity. Every method is timed as the users.service metric tagged by the method.
  *
  * @author Oleksandr Semenchenko
  */
 @Service
 @RequiredArgsConstructor
 @Log4j2
+@Timed("users.service")
 public class UserServiceImp implements UserService {
 
-  private static final String USERS_CACHE = "users";
   private static final String EMAIL_FIELD = "email";
+  private static final String BIRTHDATE_FIELD = "birthdate";
+  private static final String ID_FIELD = "id";
+  private static final int EMAIL_QUERY_CHUNK_SIZE = 1000;
+  private static final int MIN_PREFIX_LENGTH = 1;
+  private static final int MIN_CONTAINS_LENGTH = Trigrams.LENGTH;
+  private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+  private static final Set<String> REMOVABLE_PROPERTIES = Set.of(UserMapper.ADDRESS_PROPERTY,
+                                                                 UserMapper.PHONE_NUMBER_PROPERTY);
 
   private final UserRepository userRepository;
   private final AppConfig appConfig;
   private final UserMapper userMapper;
   private final Validator validator;
+  private final UserSearchCache userSearchCache;
+  private final BirthYearHistogram birthYearHistogram;
+  private final EmailFilter emailFilter;
+  private final UserChangeRepository userChangeRepository;
+  private final UserChangeBroadcaster userChangeBroadcaster;
 
   /**
    * Updates only user's data that are not null in the input object.
    * i.e. all null values in the input object are not transmitted to the database.
    * If email is present it must be unique and have a valid format.
+   * If the DTO has a version, i.e. the request had If-Match, it must match the user's current version
+   * and the user is updated with one statement without being read.
    * If a birthdate is present the user's age must be greater than the value
    * specified in the configuration file confing.properties.
    *
@@ -63,14 +118,45 @@ public class UserServiceImp implements UserService {
    */
   @Override
   @Transactional
-  @CacheEvict(value = USERS_CACHE, allEntries = true)
   public UserDto updateUserPartially(UserDto userDto) {
+    return updateUserPartially(userDto, Set.of());
+  }
+
+  /**
+   * Applies a JSON merge patch (RFC 7396) to user's data: not null values in the input object are updated
+   * as by {@link #updateUserPartially(UserDto)} and the removed properties are set to null.
+   * Only optional properties, i.e. address and phone number, can be removed.
+   *
+   * @param userDto - user data
+   * @param removedProperties - names of the properties explicitly set to null
+   * @return UserDto
+   */
+  @Override
+  @Transactional
+  public UserDto updateUserPartially(UserDto userDto, Set<String> removedProperties) {
+    verifyPropertiesRemovable(removedProperties);
     verifyUserAgeIfBirthdatePresent(userDto);
     verifyEmailFormatIfPresent(userDto);
-    verifyEmailUniqueIfPresent(userDto);
-    User updatedUser = updateEntityByNotNullFieldsOfDto(userDto);
-    User savedUser = userRepository.save(updatedUser);
-    return userMapper.toDto(savedUser);
+    Map<String, Object> changes = userMapper.toChanges(userDto, removedProperties);
+
+    if (nonNull(userDto.getVersion()) && !changes.isEmpty()) {
+      return updateIfVersionMatches(userDto.getId(), userDto.getVersion(), changes);
+    }
+    User user = findUserById(userDto.getId());
+    verifyVersionIfPresent(userDto, user);
+    UserSnapshot snapshot = UserSnapshot.of(user);
+    User updatedUser = userMapper.updateEntityByNotNullValues(userDto, user);
+    userMapper.removeProperties(removedProperties, updatedUser);
+    return saveChanges(snapshot, updatedUser, userDto.getVersion());
+  }
+
+  private void verifyPropertiesRemovable(Set<String> properties) {
+    for (String property : properties) {
+      if (!REMOVABLE_PROPERTIES.contains(property)) {
+        log.debug("The property %s is required and cannot be removed".formatted(property));
+        throw new PropertyNotRemovableException(property);
+      }
+    }
   }
 
   private void verifyUserAgeIfBirthdatePresent(UserDto userDto) {
@@ -90,40 +176,160 @@ public class UserServiceImp implements UserService {
     }
   }
 
-  private void verifyEmailUniqueIfPresent(UserDto userDto) {
-    if (nonNull(userDto.getEmail())) {
-      verifyIfEmailUnique(userDto.getEmail());
+  private User findUserById(UUID userId) {
+    return userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+  }
+
+  private void verifyVersionIfPresent(UserDto userDto, User user) {
+    if (nonNull(userDto.getVersion()) && !userDto.getVersion().equals(user.getVersion())) {
+      log.debug("The user %s has the version %s".formatted(user.getId(), user.getVersion()));
+      throw new UserVersionMismatchException(user.getId(), userDto.getVersion());
+    }
+  }
+
+  /**
+   * Flushes the changes of a user, with the dynamic update only the changed columns are updated
+   * and if nothing is changed no statement is issued at all. The uniqueness of the email is checked
+   * by the unique constraint instead of a query before the update, so a user keeping their email
+   * is not reported as a conflict.
+   *
+   * @param snapshot - the user's data before the changes
+   * @param user - the changed user entity
+   * @param expectedVersion - the version from If-Match, null if the request had no If-Match
+   * @return UserDto
+   */
+  private UserDto saveChanges(UserSnapshot snapshot, User user, Long expectedVersion) {
+    User savedUser;
+
+    try {
+      savedUser = userRepository.saveAndFlush(user);
+    } catch (DataIntegrityViolationException e) {
+      if (isUniqueViolation(e) && !Objects.equals(snapshot.email(), user.getEmail())) {
+        log.debug("User with email %s already exists".formatted(user.getEmail()));
+        throw new EmailNotUniqueException(user.getEmail());
+      }
+      throw e;
+    } catch (OptimisticLockingFailureException e) {
+      log.debug("The user %s has been changed concurrently".formatted(user.getId()));
+
+      if (nonNull(expectedVersion)) {
+        throw new UserVersionMismatchException(user.getId(), expectedVersion);
+      }
+      throw e;
+    }
+
+    if (!Objects.equals(snapshot.version(), savedUser.getVersion())) {
+      onUserUpdated(snapshot, savedUser);
+      recordChanges(UserChangeType.UPDATED, List.of(savedUser.getId()));
+    }
+    return userMapper.toDto(savedUser);
+  }
+
+  /**
+   * Updates a user of the version from If-Match with one statement, the user is not read before.
+   * The statement returns the user's data before the update, the side effects are derived from them
+   * as by {@link #saveChanges(UserSnapshot, User, Long)}. Only if no user has been updated,
+   * the existence of the user tells a missing user from a changed one.
+   *
+   * @param userId - a user ID
+   * @param version - the version from If-Match
+   * @param changes - new values by property names, not empty
+   * @return UserDto
+   */
+  private UserDto updateIfVersionMatches(UUID userId, long version, Map<String, Object> changes) {
+    Optional<User> previousUser;
+
+    try {
+      previousUser = userRepository.updateIfVersionReturningOld(userId, version, changes);
+    } catch (DataIntegrityViolationException e) {
+      if (isUniqueViolation(e) && changes.get(UserMapper.EMAIL_PROPERTY) instanceof String email) {
+        log.debug("User with email %s already exists".formatted(email));
+        throw new EmailNotUniqueException(email);
+      }
+      throw e;
+    }
+
+    if (previousUser.isEmpty()) {
+      if (!userRepository.existsById(userId)) {
+        throw new UserNotFoundException(userId);
+      }
+      log.debug("The user %s does not have the version %s".formatted(userId, version));
+      throw new UserVersionMismatchException(userId, version);
+    }
+    // a read of the user later in this transaction caches the uncommitted row, it must go on a rollback too
+    TransactionUtils.runAfterCompletion(() -> userRepository.evictFromCache(List.of(userId)));
+    UserSnapshot snapshot = UserSnapshot.of(previousUser.get());
+    User updatedUser = userMapper.applyChanges(changes, previousUser.get());
+    updatedUser.setVersion(version + 1);
+    onUserUpdated(snapshot, updatedUser);
+    recordChanges(UserChangeType.UPDATED, List.of(userId));
+    return userMapper.toDto(updatedUser);
+  }
+
+  private static boolean isUniqueViolation(Throwable e) {
+    for (Throwable cause = e; nonNull(cause); cause = cause.getCause()) {
+      if (cause instanceof SQLException sqlException
+          && UNIQUE_VIOLATION_SQL_STATE.equals(sqlException.getSQLState())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void onUserUpdated(UserSnapshot snapshot, User savedUser) {
+    emailFilter.put(savedUser.getEmail());
+
+    if (!snapshot.hasSameText(savedUser)) {
+      userRepository.reindex(savedUser);
     }
+    userSearchCache.evictCovering(snapshot.birthdate(), savedUser.getBirthdate());
+    birthYearHistogram.update(snapshot.birthdate(), savedUser.getBirthdate());
   }
 
-  private User updateEntityByNotNullFieldsOfDto(UserDto userDto) {
-    User user = userRepository.findById(userDto.getId())
-        .orElseThrow(() -> new UserNotFoundException(userDto.getId()));
-    return userMapper.updateEntityByNotNullValues(userDto, user);
+  private void onUserChanged(LocalDate previousBirthdate, User savedUser) {
+    LocalDate newBirthdate = null;
+
+    if (nonNull(savedUser)) {
+      emailFilter.put(savedUser.getEmail());
+      userRepository.reindex(savedUser);
+      newBirthdate = savedUser.getBirthdate();
+    }
+    userSearchCache.evictCovering(previousBirthdate, newBirthdate);
+    birthYearHistogram.update(previousBirthdate, newBirthdate);
+  }
+
+  /**
+   * Appends the changes to the feed, which stays locked until the commit, so it is the last statement
+   * of a write path, see {@link UserChangeRepository#append(UserChangeType, Collection)}.
+   */
+  private void recordChanges(UserChangeType type, List<UUID> userIds) {
+    userChangeRepository.append(type, userIds);
+    TransactionUtils.runAfterCommit(userChangeBroadcaster::onChangesCommitted);
   }
 
   /**
    * Updates user data by provided data. The email must be unique
    * and the user's age be greater than the value specified in the configuration file confing.properties.
+   * If the DTO has a version, i.e. the request had If-Match, it must match the user's current version
+   * and the user is updated with one statement without being read. Otherwise the user is usually read
+   * from the second-level cache, so the update is one statement as well.
    *
    * @param userDto - user data
    * @return UserDto
    */
   @Override
   @Transactional
-  @CacheEvict(value = USERS_CACHE, allEntries = true)
   public UserDto updateUser(UserDto userDto) {
     verifyUserAge(userDto.getBirthdate());
-    verifyIfEmailUnique(userDto.getEmail());
-    User updatedUser = updateEntity(userDto);
-    User savedUser = userRepository.save(updatedUser);
-    return userMapper.toDto(savedUser);
-  }
 
-  private User updateEntity(UserDto userDto) {
-    User user = userRepository.findById(userDto.getId())
-        .orElseThrow(() -> new UserNotFoundException(userDto.getId()));
-    return userMapper.mergeWithDto(userDto, user);
+    if (nonNull(userDto.getVersion())) {
+      return updateIfVersionMatches(userDto.getId(), userDto.getVersion(),
+                                    userMapper.toChanges(userDto, UserMapper.UPDATABLE_PROPERTIES));
+    }
+    User user = findUserById(userDto.getId());
+    UserSnapshot snapshot = UserSnapshot.of(user);
+    User updatedUser = userMapper.mergeWithDto(userDto, user);
+    return saveChanges(snapshot, updatedUser, userDto.getVersion());
   }
 
   /**
@@ -135,25 +341,40 @@ public class UserServiceImp implements UserService {
    */
   @Override
   @Transactional
-  @CacheEvict(value = USERS_CACHE, allEntries = true)
   public UserDto createUser(UserDto userDto) {
     verifyUserAge(userDto.getBirthdate());
     verifyIfEmailUnique(userDto.getEmail());
     return saveUser(userDto);
   }
 
+  /**
+   * Finds a user by ID. The user is read from the second-level cache if present there, in that case
+   * no transaction is started and the database is not queried.
+   *
+   * @param userId - a user ID
+   * @return UserDto
+   */
+  @Override
+  public UserDto getUserById(UUID userId) {
+    return userMapper.toDto(findUserById(userId));
+  }
+
   private void verifyUserAge(LocalDate birthdate) {
-    Period userAge = Period.between(birthdate, LocalDate.now());
     int minimalYearAge = appConfig.getMinimalAgeInYears();
 
-    if (userAge.getYears() <= minimalYearAge) {
+    if (!isUserAgeValid(birthdate)) {
       log.debug("The user's age must be over %s years".formatted(minimalYearAge));
       throw new UserAgeViolationException(minimalYearAge);
     }
   }
 
+  private boolean isUserAgeValid(LocalDate birthdate) {
+    Period userAge = Period.between(birthdate, LocalDate.now());
+    return userAge.getYears() > appConfig.getMinimalAgeInYears();
+  }
+
   private void verifyIfEmailUnique(String email) {
-    if (userRepository.existsByEmail(email)) {
+    if (emailFilter.contains(email, userRepository::existsByEmail)) {
       log.debug("User with email %s already exists".formatted(email));
       throw new EmailNotUniqueException(email);
     }
@@ -162,25 +383,175 @@ public class UserServiceImp implements UserService {
   private UserDto saveUser(UserDto userDto) {
     User user = userMapper.toEntity(userDto);
     User savedUser = userRepository.save(user);
+    onUserChanged(null, savedUser);
+    recordChanges(UserChangeType.CREATED, List.of(savedUser.getId()));
     return userMapper.toDto(savedUser);
   }
 
   /**
-   * Searches for users by the provided values for maxBirthdate and minBirthdate of a birthdate range.
+   * Creates users in one transaction validating each of them in memory: data constraints, age and
+   * uniqueness of the email both inside the batch and among the users in a database, the latter is
+   * checked by one query per chunk of emails that the email filter cannot rule out.
+   * Valid users are inserted in JDBC batches, invalid ones are reported with their errors and skipped.
+   *
+   * @param userDtos - users data
+   * @return BatchResult
+   */
+  @Override
+  @Transactional
+  public BatchResult createUsers(List<UserDto> userDtos) {
+    verifyBatchSize(userDtos.size());
+    Set<String> takenEmails = findExistingEmails(userDtos);
+    BatchItemResult[] results = new BatchItemResult[userDtos.size()];
+    List<Integer> validIndexes = new ArrayList<>();
+    List<User> users = new ArrayList<>();
+
+    for (int index = 0; index < userDtos.size(); index++) {
+      UserDto userDto = userDtos.get(index);
+      String error = defineBatchItemError(userDto, takenEmails);
+
+      if (nonNull(error)) {
+        results[index] = BatchItemResult.failed(index, error);
+      } else {
+        User user = userMapper.toEntity(userDto);
+        user.setId(null);
+        users.add(user);
+        validIndexes.add(index);
+      }
+    }
+    userRepository.insertAll(users);
+
+    for (int i = 0; i < users.size(); i++) {
+      results[validIndexes.get(i)] = BatchItemResult.created(validIndexes.get(i), users.get(i).getId());
+    }
+    onUsersCreated(users);
+    return BatchResult.of(Arrays.asList(results));
+  }
+
+  private void verifyBatchSize(int batchSize) {
+    int maxBatchSize = appConfig.getMaxUserBatchSize();
+
+    if (batchSize == 0 || batchSize > maxBatchSize) {
+      log.debug("The batch must contain from 1 to %s users".formatted(maxBatchSize));
+      throw new BatchSizeViolationException(maxBatchSize);
+    }
+  }
+
+  private Set<String> findExistingEmails(List<UserDto> userDtos) {
+    List<String> emails = userDtos.stream()
+        .map(UserDto::getEmail)
+        .filter(Objects::nonNull)
+        .distinct()
+        .filter(emailFilter::mightContain)
+        .toList();
+    Set<String> existingEmails = new HashSet<>();
+
+    for (int from = 0; from < emails.size(); from += EMAIL_QUERY_CHUNK_SIZE) {
+      List<String> chunk = emails.subList(from, Math.min(from + EMAIL_QUERY_CHUNK_SIZE, emails.size()));
+      existingEmails.addAll(userRepository.findExistingEmails(chunk));
+    }
+    emailFilter.recordFalsePositives(emails.size() - existingEmails.size());
+    return existingEmails;
+  }
+
+  private String defineBatchItemError(UserDto userDto, Set<String> takenEmails) {
+    Set<ConstraintViolation<UserDto>> violations = validator.validate(userDto);
+
+    if (!violations.isEmpty()) {
+      return violations.stream()
+          .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+          .sorted()
+          .collect(Collectors.joining(", "));
+    }
+
+    if (!isUserAgeValid(userDto.getBirthdate())) {
+      return new UserAgeViolationException(appConfig.getMinimalAgeInYears()).getMessage();
+    }
+
+    if (!takenEmails.add(userDto.getEmail())) {
+      return new EmailNotUniqueException(userDto.getEmail()).getMessage();
+    }
+    return null;
+  }
+
+  private void onUsersCreated(List<User> users) {
+    users.forEach(user -> emailFilter.put(user.getEmail()));
+    userRepository.indexAll(users);
+    recordChanges(UserChangeType.CREATED, users.stream().map(User::getId).toList());
+    List<LocalDate> birthdates = users.stream().map(User::getBirthdate).toList();
+    userSearchCache.evictCovering(birthdates);
+    birthYearHistogram.addAll(birthdates);
+  }
+
+  /**
+   * Searches for users by the provided values for maxBirthdate and minBirthdate of a birthdate range
+   * and by the prefixes or parts of emails and names, the latter are looked up in the trigram index.
    * If the values are not provided returns all users contained in a database.
    * If a request has no sorting the default sorting is applied.
+   * The users are selected directly into DTOs without loading entities.
    *
    * @param searchFilter - searches parameters
    * @param pageable - page settings
    * @return Page<UserDto>
    */
   @Override
-  @Cacheable(value = USERS_CACHE, key = "{ #root.methodName, #seachFilter, #pageable }")
   public Page<UserDto> searchUsers(SearchFilter searchFilter, Pageable pageable) {
-    verifyPeriod(searchFilter.getMinBirthdate(), searchFilter.getMaxBirthdate());
+    verifySearchFilter(searchFilter);
+    Specification<User> specification = UserSpecification.getSpecification(searchFilter);
+    pageable = setDefaultSortIfNeeded(pageable);
+    return userRepository.findDtoPage(specification, pageable);
+  }
+
+  /**
+   * Searches for users like {@link #searchUsers(SearchFilter, Pageable)} but instead of a count query
+   * the total number of users is estimated from the birth year histogram. The histogram knows nothing
+   * about emails and names, so a search by them is counted exactly.
+   *
+   * @param searchFilter - searches parameters
+   * @param pageable - page settings
+   * @return Page<UserDto>
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Page<UserDto> searchUsersWithEstimatedCount(SearchFilter searchFilter, Pageable pageable) {
+    if (searchFilter.hasTextTerms()) {
+      return searchUsers(searchFilter, pageable);
+    }
+    Slice<UserDto> slice = searchUsersWithoutCount(searchFilter, pageable);
+    long estimatedCount = birthYearHistogram.estimate(searchFilter.getMinBirthdate(),
+                                                      searchFilter.getMaxBirthdate());
+    return new PageImpl<>(slice.getContent(), slice.getPageable(), estimatedCount);
+  }
+
+  /**
+   * Searches for users like {@link #searchUsers(SearchFilter, Pageable)} but without a count query,
+   * the returned slice only knows if there is a next page.
+   *
+   * @param searchFilter - searches parameters
+   * @param pageable - page settings
+   * @return Slice<UserDto>
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Slice<UserDto> searchUsersWithoutCount(SearchFilter searchFilter, Pageable pageable) {
+    verifySearchFilter(searchFilter);
     Specification<User> specification = UserSpecification.getSpecification(searchFilter);
     pageable = setDefaultSortIfNeeded(pageable);
-    return userRepository.findAll(specification, pageable).map(userMapper::toDto);
+    return userRepository.findDtoSlice(specification, pageable);
+  }
+
+  /**
+   * Verifies the search parameters before a search whose response is written lazily, e.g. an export.
+   *
+   * @param searchFilter - searches parameters
+   */
+  @Override
+  public void verifySearchFilter(SearchFilter searchFilter) {
+    verifyPeriod(searchFilter.getMinBirthdate(), searchFilter.getMaxBirthdate());
+    verifyTermLength("emailStartsWith", searchFilter.getEmailStartsWith(), MIN_PREFIX_LENGTH);
+    verifyTermLength("emailContains", searchFilter.getEmailContains(), MIN_CONTAINS_LENGTH);
+    verifyTermLength("nameStartsWith", searchFilter.getNameStartsWith(), MIN_PREFIX_LENGTH);
+    verifyTermLength("nameContains", searchFilter.getNameContains(), MIN_CONTAINS_LENGTH);
   }
 
   private void verifyPeriod(LocalDate from, LocalDate to) {
@@ -190,6 +561,13 @@ public class UserServiceImp implements UserService {
     }
   }
 
+  private void verifyTermLength(String parameter, String term, int minLength) {
+    if (hasText(term) && term.trim().length() < minLength) {
+      log.debug("The value of %s must contain at least %s characters".formatted(parameter, minLength));
+      throw new SearchTermNotValidException(parameter, minLength);
+    }
+  }
+
   private Pageable setDefaultSortIfNeeded(Pageable pageable) {
     if (pageable.getSort().isUnsorted()) {
       Sort defaulSort = Sort.by(appConfig.getUserSortDirection(), appConfig.getUserSortBy());
@@ -201,11 +579,174 @@ public class UserServiceImp implements UserService {
     return pageable;
   }
 
+  /**
+   * Searches for users by the birthdate range using keyset pagination. The users are ordered by birthdate
+   * in the default sort direction with ID as a tie-breaker, and each page is selected by seeking past
+   * the cursor instead of skipping rows, so neither a deep page nor a count query is needed.
+   * The order is fixed by the cursor, the configured default sort property is validated to be the same.
+   *
+   * @param searchFilter - searches parameters
+   * @param cursor - the nextCursor token of the previous page, empty for the first page
+   * @param size - page size
+   * @return CursorPage<UserDto>
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPage<UserDto> scrollUsers(SearchFilter searchFilter, String cursor, int size) {
+    verifySearchFilter(searchFilter);
+    Direction direction = appConfig.getUserSortDirection();
+    Specification<User> specification = UserSpecification.getSpecification(searchFilter,
+                                                                           UserCursor.decode(cursor),
+                                                                           direction);
+    Sort keysetSort = Sort.by(direction, BIRTHDATE_FIELD, ID_FIELD);
+    List<User> users = userRepository.findBy(specification, query -> query.sortBy(keysetSort)
+        .limit(size + 1)
+        .all());
+    return toCursorPage(users, size);
+  }
+
+  private CursorPage<UserDto> toCursorPage(List<User> users, int size) {
+    if (users.size() <= size) {
+      return new CursorPage<>(users.stream().map(userMapper::toDto).toList(), null);
+    }
+    List<User> pageUsers = users.subList(0, size);
+    String nextCursor = UserCursor.of(pageUsers.get(size - 1)).encode();
+    return new CursorPage<>(pageUsers.stream().map(userMapper::toDto).toList(), nextCursor);
+  }
+
+  /**
+   * Exports users in the birthdate range ordered like the pages of the cursor pagination.
+   * The users are read by one forward-only query and handed over one by one,
+   * so the memory does not depend on the number of exported users.
+   *
+   * @param searchFilter - searches parameters
+   * @param consumer - a consumer of exported users
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public void exportUsers(SearchFilter searchFilter, Consumer<UserDto> consumer) {
+    verifySearchFilter(searchFilter);
+    Specification<User> specification = UserSpecification.getSpecification(searchFilter);
+    Sort keysetSort = Sort.by(appConfig.getUserSortDirection(), BIRTHDATE_FIELD, ID_FIELD);
+
+    try (Stream<User> users = userRepository.streamAll(specification, keysetSort)) {
+      users.map(userMapper::toDto).forEach(consumer);
+    }
+  }
+
+  /**
+   * Returns the changes of users following the cursor in the order they were made, so a consumer mirroring
+   * users syncs by the changes only. A change carries the current user's data, created and updated users
+   * are to be upserted and deleted ones removed. The change IDs follow the order of the commits,
+   * so a consumer past a change never misses a lower one. The changes are returned once they are older
+   * than the visibility delay, as the user stream sends them.
+   *
+   * @param after - the nextCursor of the previous batch, empty to sync from the start
+   * @param size - the maximum number of changes
+   * @return CursorPage<UserChangeDto>
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPage<UserChangeDto> getUserChanges(String after, int size) {
+    long afterId = parseChangeCursor(after);
+    Instant visibleBefore = Instant.now().minus(appConfig.getUserChangeVisibilityDelay());
+    List<UserChangeDto> changes = userChangeRepository.findChanges(afterId, visibleBefore, Limit.of(size)).stream()
+        .map(userMapper::toChangeDto)
+        .toList();
+
+    if (afterId > 0 && afterId < userChangeRepository.findPrunedThrough()) {
+      log.debug("The deletions after the change %s are pruned".formatted(afterId));
+      throw new ChangeCursorExpiredException(after);
+    }
+    long lastId = changes.isEmpty() ? afterId : changes.get(changes.size() - 1).getId();
+    return new CursorPage<>(changes, String.valueOf(lastId));
+  }
+
+  private long parseChangeCursor(String cursor) {
+    if (isNull(cursor) || cursor.isBlank()) {
+      return 0;
+    }
+
+    try {
+      long id = Long.parseLong(cursor);
+
+      if (id >= 0) {
+        return id;
+      }
+    } catch (NumberFormatException e) {
+      log.debug("The change cursor %s is not a number".formatted(cursor));
+    }
+    throw new CursorNotValidException(cursor);
+  }
+
+  /**
+   * Deletes a user with a single statement, see {@link #deleteUsers(Collection)}.
+   *
+   * @param userId - a user ID
+   */
   @Override
   @Transactional
-  @CacheEvict(value = USERS_CACHE, allEntries = true)
   public void deleteUserById(UUID userId) {
-    User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
-    userRepository.delete(user);
+    if (deleteUsers(List.of(userId)) == 0) {
+      throw new UserNotFoundException(userId);
+    }
+  }
+
+  /**
+   * Deletes users with one statement without loading them and invalidates what depends on them
+   * once for all of them: the trigram index, the second-level cache, the search cache and the birth year
+   * histogram, the deletions are recorded in the change feed. IDs of users that do not exist are skipped.
+   *
+   * @param userIds - IDs of users to delete, a chunk of at most the batch chunk size
+   * @return int - the number of deleted users
+   */
+  @Override
+  @Transactional
+  public int deleteUsers(Collection<UUID> userIds) {
+    List<DeletedUser> deletedUsers = userRepository.deleteAllByIdReturning(userIds.stream().distinct().toList());
+
+    if (deletedUsers.isEmpty()) {
+      return 0;
+    }
+    List<UUID> deletedIds = deletedUsers.stream().map(DeletedUser::id).toList();
+    List<LocalDate> birthdates = deletedUsers.stream().map(DeletedUser::birthdate).toList();
+    userRepository.unindexAll(deletedIds);
+    TransactionUtils.runAfterCommit(() -> userRepository.evictFromCache(deletedIds));
+    recordChanges(UserChangeType.DELETED, deletedIds);
+    userSearchCache.evictCovering(birthdates);
+    birthYearHistogram.removeAll(birthdates);
+    return deletedUsers.size();
+  }
+
+  /**
+   * Finds the IDs of users matching the filter in the order of IDs, e.g. to delete them chunk by chunk.
+   *
+   * @param searchFilter - search parameters
+   * @param after - the last ID of the previous chunk, null for the first chunk
+   * @param limit - the maximum number of IDs
+   * @return List<UUID>
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<UUID> findUserIds(SearchFilter searchFilter, UUID after, int limit) {
+    verifySearchFilter(searchFilter);
+    return userRepository.findIds(UserSpecification.getSpecification(searchFilter), after, limit);
+  }
+
+  /**
+   * The user's data that define which side effects an update has.
+   */
+  private record UserSnapshot(String email, String firstName, String lastName, LocalDate birthdate, Long version) {
+
+    static UserSnapshot of(User user) {
+      return new UserSnapshot(user.getEmail(), user.getFirstName(), user.getLastName(), user.getBirthdate(),
+                              user.getVersion());
+    }
+
+    boolean hasSameText(User user) {
+      return Objects.equals(email, user.getEmail())
+             && Objects.equals(firstName, user.getFirstName())
+             && Objects.equals(lastName, user.getLastName());
+    }
   }
 }
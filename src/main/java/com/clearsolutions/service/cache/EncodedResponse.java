@@ -0,0 +1,65 @@
+package com.clearsolutions.service.cache;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * A response body encoded once and served as is, optionally with its gzipped variant.
+ * The ETag is the hash of the body, the gzipped variant has its own ETag since it is another representation.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class EncodedResponse {
+
+  private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+  private final byte[] body;
+  private final byte[] gzippedBody;
+  private final String eTag;
+
+  /**
+   * Wraps the encoded body and gzips it if it is big enough and gzip makes it smaller.
+   *
+   * @param body - an encoded body
+   * @param gzipMinSize - the minimal size of a body to be gzipped
+   * @return EncodedResponse
+   */
+  public static EncodedResponse of(byte[] body, int gzipMinSize) {
+    byte[] gzippedBody = body.length >= gzipMinSize ? gzip(body) : null;
+
+    if (nonNull(gzippedBody) && gzippedBody.length >= body.length) {
+      gzippedBody = null;
+    }
+    return new EncodedResponse(body, gzippedBody, DigestUtils.md5DigestAsHex(body));
+  }
+
+  private static byte[] gzip(byte[] body) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length / 4);
+
+    try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+      gzipOutputStream.write(body);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return outputStream.toByteArray();
+  }
+
+  public boolean isGzipped() {
+    return nonNull(gzippedBody);
+  }
+
+  public String getGzippedETag() {
+    return eTag + GZIP_ETAG_SUFFIX;
+  }
+}
@@ -0,0 +1,126 @@
+package com.clearsolutions.service.cache;
+
+import com.clearsolutions.service.utils.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Holds the cached search pages and invalidates the ones whose birthdate range covers a changed user.
+ * If a transaction is active the entries are evicted after its commit. A search that started before
+ * the commit may still read the state before the change and finish after the eviction, so every eviction
+ * moves the generation first and a page is cached only if the generation has not moved since its search
+ * started. The searches in flight covering the user are detached from {@link UserSearchCoalescer}
+ * at the same time.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class UserSearchCache {
+
+  public static final String USERS_CACHE = "users";
+
+  private final CacheManager cacheManager;
+  private final UserSearchCoalescer userSearchCoalescer;
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Returns the current generation, a search reads it before it reads the users.
+   *
+   * @return long
+   */
+  public long currentGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Finds a cached search page.
+   *
+   * @param key - the key of the search
+   * @return EncodedResponse - the page, null if it is not cached
+   */
+  public EncodedResponse get(UserSearchKey key) {
+    Cache cache = cacheManager.getCache(USERS_CACHE);
+    return isNull(cache) ? null : cache.get(key, EncodedResponse.class);
+  }
+
+  /**
+   * Caches a search page unless users have changed since the search started. The generation is checked
+   * once more after the put, since an eviction may have passed the key just before it.
+   *
+   * @param key - the key of the search
+   * @param response - the page found by the search
+   * @param searchGeneration - the generation read before the search
+   */
+  public void putIfUnchanged(UserSearchKey key, EncodedResponse response, long searchGeneration) {
+    Cache cache = cacheManager.getCache(USERS_CACHE);
+
+    if (isNull(cache) || generation.get() != searchGeneration) {
+      return;
+    }
+    cache.put(key, response);
+
+    if (generation.get() != searchGeneration) {
+      cache.evict(key);
+    }
+  }
+
+  /**
+   * Evicts search pages covering any of the birthdates, e.g. the previous and the new birthdate
+   * of an updated user.
+   *
+   * @param birthdates - birthdates of a changed user
+   */
+  public void evictCovering(LocalDate... birthdates) {
+    evictCovering(Arrays.asList(birthdates));
+  }
+
+  /**
+   * Evicts search pages covering any of the birthdates of changed users,
+   * the cache is traversed once regardless of the number of users.
+   *
+   * @param birthdates - birthdates of changed users
+   */
+  public void evictCovering(Collection<LocalDate> birthdates) {
+    NavigableSet<LocalDate> sortedBirthdates = birthdates.stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toCollection(TreeSet::new));
+    TransactionUtils.runAfterCommit(() -> evictNow(sortedBirthdates));
+  }
+
+  private void evictNow(NavigableSet<LocalDate> birthdates) {
+    generation.incrementAndGet();
+    userSearchCoalescer.detachCovering(birthdates);
+    Cache cache = cacheManager.getCache(USERS_CACHE);
+
+    if (isNull(cache)) {
+      return;
+    }
+
+    if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+      nativeCache.asMap().keySet().removeIf(key -> isCovering(key, birthdates));
+    } else {
+      log.debug("The cache %s does not support targeted eviction, all entries are evicted".formatted(USERS_CACHE));
+      cache.clear();
+    }
+  }
+
+  private boolean isCovering(Object key, NavigableSet<LocalDate> birthdates) {
+    return !(key instanceof UserSearchKey searchKey) || searchKey.coversAny(birthdates);
+  }
+}
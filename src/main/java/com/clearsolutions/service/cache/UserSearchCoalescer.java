@@ -0,0 +1,115 @@
+package com.clearsolutions.service.cache;
+
+import com.clearsolutions.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Coalesces identical concurrent searches that have missed the cache, so a search is executed once per key
+ * while the other callers wait for its result. A caller waits up to the coalescing timeout and then runs
+ * its own search, a failure of the search is rethrown to every caller. When users change, the searches
+ * covering them are detached, so that the callers coming after the change do not get the state before it.
+ * A detached search still completes for the callers that joined it, its page is not cached though,
+ * since the search caches it only if users have not changed since it started, see {@link UserSearchCache}.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@Log4j2
+public class UserSearchCoalescer {
+
+  private static final String COALESCED_METRIC = "users.search.coalesced";
+  private static final String TIMEOUTS_METRIC = "users.search.coalescing.timeouts";
+  private static final String IN_FLIGHT_METRIC = "users.search.in.flight";
+
+  private final Map<UserSearchKey, CompletableFuture<EncodedResponse>> flights = new ConcurrentHashMap<>();
+  private final Duration timeout;
+  private final Counter coalescedCounter;
+  private final Counter timeoutCounter;
+
+  public UserSearchCoalescer(AppConfig appConfig, MeterRegistry meterRegistry) {
+    this.timeout = appConfig.getSearchCoalescingTimeout();
+    this.coalescedCounter = meterRegistry.counter(COALESCED_METRIC);
+    this.timeoutCounter = meterRegistry.counter(TIMEOUTS_METRIC);
+    Gauge.builder(IN_FLIGHT_METRIC, flights, Map::size).register(meterRegistry);
+  }
+
+  /**
+   * Executes the search unless an identical one is in flight, in that case waits for its result.
+   *
+   * @param key - the key of the search
+   * @param search - the search
+   * @return EncodedResponse
+   */
+  public EncodedResponse execute(UserSearchKey key, Supplier<EncodedResponse> search) {
+    CompletableFuture<EncodedResponse> flight = new CompletableFuture<>();
+    CompletableFuture<EncodedResponse> existingFlight = flights.putIfAbsent(key, flight);
+
+    if (isNull(existingFlight)) {
+      return lead(key, flight, search);
+    }
+    coalescedCounter.increment();
+    return await(existingFlight, search);
+  }
+
+  private EncodedResponse lead(UserSearchKey key, CompletableFuture<EncodedResponse> flight,
+                               Supplier<EncodedResponse> search) {
+    try {
+      EncodedResponse response = search.get();
+      flight.complete(response);
+      return response;
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      flights.remove(key, flight);
+    }
+  }
+
+  private EncodedResponse await(CompletableFuture<EncodedResponse> flight, Supplier<EncodedResponse> search) {
+    try {
+      return flight.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      timeoutCounter.increment();
+      log.debug("The coalesced search has not finished in %s, the search is executed again".formatted(timeout));
+      return search.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("The thread has been interrupted while waiting for a coalesced search", e);
+    }
+  }
+
+  /**
+   * Detaches the searches in flight whose birthdate range covers any of the birthdates,
+   * they complete for their current callers only.
+   *
+   * @param birthdates - sorted birthdates of changed users
+   */
+  public void detachCovering(NavigableSet<LocalDate> birthdates) {
+    flights.keySet().removeIf(key -> key.coversAny(birthdates));
+  }
+}
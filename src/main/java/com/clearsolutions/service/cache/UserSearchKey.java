@@ -0,0 +1,82 @@
+package com.clearsolutions.service.cache;
+
+import com.clearsolutions.service.specification.SearchFilter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NavigableSet;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The key of a cached search page. It holds the birthdate range of the search filter
+ * so that entries affected by a changed user can be found without clearing the whole cache.
+ * The email and name terms and the media type only tell the pages apart, a changed user evicts a page by the range.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Data
+@AllArgsConstructor
+public class UserSearchKey {
+
+  private LocalDate minBirthdate;
+  private LocalDate maxBirthdate;
+  private Pageable pageable;
+  private List<String> textTerms;
+  private MediaType mediaType;
+
+  public UserSearchKey(LocalDate minBirthdate, LocalDate maxBirthdate, Pageable pageable) {
+    this(minBirthdate, maxBirthdate, pageable, List.of());
+  }
+
+  public UserSearchKey(LocalDate minBirthdate, LocalDate maxBirthdate, Pageable pageable, List<String> textTerms) {
+    this(minBirthdate, maxBirthdate, pageable, textTerms, MediaType.APPLICATION_JSON);
+  }
+
+  /**
+   * Builds the key of a search page from the search filter, page settings and the media type of the response.
+   *
+   * @param searchFilter - a search filter
+   * @param pageable - page settings
+   * @param mediaType - the media type of the response
+   * @return UserSearchKey
+   */
+  public static UserSearchKey of(SearchFilter searchFilter, Pageable pageable, MediaType mediaType) {
+    return new UserSearchKey(searchFilter.getMinBirthdate(), searchFilter.getMaxBirthdate(), pageable,
+                             searchFilter.toTextTerms(), mediaType);
+  }
+
+  /**
+   * Checks if a user with the given birthdate belongs to the search range, i.e. if adding,
+   * removing or changing such a user can change the cached page.
+   *
+   * @param birthdate - a user's birthdate
+   * @return boolean
+   */
+  public boolean covers(LocalDate birthdate) {
+    if (isNull(birthdate)) {
+      return false;
+    }
+    boolean afterMin = isNull(minBirthdate) || !birthdate.isBefore(minBirthdate);
+    boolean beforeMax = isNull(maxBirthdate) || !birthdate.isAfter(maxBirthdate);
+    return afterMin && beforeMax;
+  }
+
+  /**
+   * Checks if any of the sorted birthdates belongs to the search range.
+   *
+   * @param birthdates - sorted birthdates of changed users
+   * @return boolean
+   */
+  public boolean coversAny(NavigableSet<LocalDate> birthdates) {
+    if (birthdates.isEmpty()) {
+      return false;
+    }
+    LocalDate firstInRange = isNull(minBirthdate) ? birthdates.first() : birthdates.ceiling(minBirthdate);
+    return covers(firstInRange);
+  }
+}
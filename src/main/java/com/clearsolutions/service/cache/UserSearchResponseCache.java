@@ -0,0 +1,95 @@
+package com.clearsolutions.service.cache;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.config.BinaryFormatConfig;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.specification.SearchFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Caches search pages encoded as JSON, CBOR or Smile, so a hit costs neither a query nor serialization
+ * and the bytes are written to the response as they are. The entries are kept and evicted by {@link UserSearchCache},
+ * a page is not cached if users have changed while it was searched.
+ * Identical searches missing the cache at the same time are executed once, see {@link UserSearchCoalescer}.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+public class UserSearchResponseCache {
+
+  public static final List<MediaType> MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON,
+                                                            MediaType.APPLICATION_CBOR,
+                                                            BinaryFormatConfig.APPLICATION_SMILE);
+
+  private final UserService userService;
+  private final UserSearchCache userSearchCache;
+  private final UserSearchCoalescer userSearchCoalescer;
+  private final AppConfig appConfig;
+  private final Map<MediaType, ObjectMapper> objectMappers;
+
+  public UserSearchResponseCache(UserService userService, UserSearchCache userSearchCache,
+                                 UserSearchCoalescer userSearchCoalescer, ObjectMapper objectMapper,
+                                 AppConfig appConfig) {
+    this.userService = userService;
+    this.userSearchCache = userSearchCache;
+    this.userSearchCoalescer = userSearchCoalescer;
+    this.appConfig = appConfig;
+    this.objectMappers = Map.of(MediaType.APPLICATION_JSON, objectMapper,
+                                MediaType.APPLICATION_CBOR, BinaryFormatConfig.cborMapper(objectMapper),
+                                BinaryFormatConfig.APPLICATION_SMILE, BinaryFormatConfig.smileMapper(objectMapper));
+  }
+
+  /**
+   * Searches for users like {@link UserService#searchUsers(SearchFilter, Pageable)} and encodes the page.
+   *
+   * @param searchFilter - searches parameters
+   * @param pageable - page settings
+   * @param mediaType - one of {@link #MEDIA_TYPES}
+   * @return EncodedResponse
+   */
+  public EncodedResponse searchUsers(SearchFilter searchFilter, Pageable pageable, MediaType mediaType) {
+    UserSearchKey key = UserSearchKey.of(searchFilter, pageable, mediaType);
+    EncodedResponse cachedResponse = userSearchCache.get(key);
+
+    if (nonNull(cachedResponse)) {
+      return cachedResponse;
+    }
+    return userSearchCoalescer.execute(key, () -> searchAndCache(key, searchFilter, pageable, mediaType));
+  }
+
+  /**
+   * Runs the search for all the coalesced callers and caches the page. The generation is read by the caller
+   * running the search, so the page is refused if users have changed since the search started, even if
+   * the callers sharing it have joined after the change. The joined callers do not cache the page themselves.
+   */
+  private EncodedResponse searchAndCache(UserSearchKey key, SearchFilter searchFilter, Pageable pageable,
+                                        MediaType mediaType) {
+    long generation = userSearchCache.currentGeneration();
+    EncodedResponse response = search(searchFilter, pageable, mediaType);
+    userSearchCache.putIfUnchanged(key, response, generation);
+    return response;
+  }
+
+  private EncodedResponse search(SearchFilter searchFilter, Pageable pageable, MediaType mediaType) {
+    Page<UserDto> page = userService.searchUsers(searchFilter, pageable);
+
+    try {
+      byte[] body = objectMappers.get(mediaType).writeValueAsBytes(page);
+      return EncodedResponse.of(body, appConfig.getSearchResponseGzipMinSize());
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
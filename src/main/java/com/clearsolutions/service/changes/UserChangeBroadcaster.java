@@ -0,0 +1,349 @@
+package com.clearsolutions.service.changes;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.exceptionhandler.exceptions.CursorNotValidException;
+import com.clearsolutions.mapper.UserMapper;
+import com.clearsolutions.repository.UserChangeRepository;
+import com.clearsolutions.service.dto.UserChangeDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Pushes committed changes of users to the subscribers of the user stream as server-sent events.
+ * The write paths wake the broadcaster up after their commits, then one poller thread reads the new changes
+ * from the change feed once for all the subscribers and puts them into the subscribers' bounded buffers
+ * without blocking. The change IDs follow the order of the commits, so the poller resumes after the last
+ * broadcast change without skipping one. Like the change feed, it reads only the changes older than
+ * the visibility delay, so one poll picks up the commits made within the delay. The events are written
+ * to the connections by sender threads, which are virtual threads when virtual threads are enabled.
+ * A sender thread is never shared by subscribers, so neither request threads nor other subscribers wait for a slow one.
+ * A subscriber whose buffer overflows or whose write is blocked longer than the send timeout gets a resync
+ * event with the ID of the last sent change and is closed, it resumes by the Last-Event-ID header
+ * or by the change feed if it has fallen behind too far.
+ * The poller is also woken up by the heartbeat, so the changes committed by other instances are pushed too.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@Log4j2
+public class UserChangeBroadcaster {
+
+  private static final String THREAD_NAME_PREFIX = "user-stream-";
+  private static final String RESYNC_EVENT = "resync";
+  private static final String HEARTBEAT_COMMENT = "heartbeat";
+  private static final String SUBSCRIBERS_METRIC = "users.stream.subscribers";
+  private static final String RESYNCS_METRIC = "users.stream.resyncs";
+  private static final String STALLS_METRIC = "users.stream.stalls";
+  private static final long MIN_REPOLL_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long NO_EVENT_ID = -1;
+
+  private final UserChangeRepository userChangeRepository;
+  private final UserMapper userMapper;
+  private final AppConfig appConfig;
+  private final Set<UserStreamSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService pollExecutor;
+  private final Executor sendExecutor;
+  private final AtomicBoolean pollPending = new AtomicBoolean();
+  private final AtomicLong lastBroadcastId = new AtomicLong();
+  private final Counter resyncCounter;
+  private final Counter stallCounter;
+  private volatile boolean loaded;
+
+  public UserChangeBroadcaster(UserChangeRepository userChangeRepository, UserMapper userMapper,
+                               AppConfig appConfig, MeterRegistry meterRegistry, Environment environment) {
+    this.userChangeRepository = userChangeRepository;
+    this.userMapper = userMapper;
+    this.appConfig = appConfig;
+    this.pollExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+    this.sendExecutor = createSendExecutor(environment);
+    this.resyncCounter = meterRegistry.counter(RESYNCS_METRIC);
+    this.stallCounter = meterRegistry.counter(STALLS_METRIC);
+    Gauge.builder(SUBSCRIBERS_METRIC, subscribers, Set::size).register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    lastBroadcastId.set(userChangeRepository.findLastIdBefore(visibleBefore()));
+    loaded = true;
+    log.debug("The user stream starts after the change %s".formatted(lastBroadcastId.get()));
+  }
+
+  /**
+   * Subscribes to the changes committed after the subscription or after the given event
+   * if the subscriber resumes. The missed changes are replayed before the new ones
+   * unless there are more of them than the buffer holds, in that case the subscriber is resynced at once.
+   *
+   * @param lastEventId - the ID of the last event received before reconnecting, null for a new subscription
+   * @return SseEmitter
+   */
+  public SseEmitter subscribe(String lastEventId) {
+    long resumeId = parseEventId(lastEventId);
+    SseEmitter emitter = new SseEmitter(appConfig.getUserStreamTimeout().toMillis());
+    long lastSentId = resumeId == NO_EVENT_ID ? lastBroadcastId.get() : resumeId;
+    UserStreamSubscriber subscriber = new UserStreamSubscriber(emitter, appConfig.getUserStreamBufferSize(),
+                                                               lastSentId);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(e -> subscribers.remove(subscriber));
+    subscribers.add(subscriber);
+    sendExecutor.execute(() -> replay(subscriber, resumeId != NO_EVENT_ID));
+    return emitter;
+  }
+
+  private long parseEventId(String lastEventId) {
+    if (isNull(lastEventId) || lastEventId.isBlank()) {
+      return NO_EVENT_ID;
+    }
+
+    try {
+      long id = Long.parseLong(lastEventId);
+
+      if (id >= 0) {
+        return id;
+      }
+    } catch (NumberFormatException e) {
+      log.debug("The event ID %s is not a number".formatted(lastEventId));
+    }
+    throw new CursorNotValidException(lastEventId);
+  }
+
+  private void replay(UserStreamSubscriber subscriber, boolean resuming) {
+    try {
+      if (resuming) {
+        replayMissed(subscriber);
+      }
+      subscriber.finishReplay();
+      schedule(subscriber);
+    } catch (IOException | RuntimeException e) {
+      close(subscriber, e);
+    }
+  }
+
+  private void replayMissed(UserStreamSubscriber subscriber) throws IOException {
+    int bufferSize = appConfig.getUserStreamBufferSize();
+    long after = subscriber.getLastSentId();
+    List<UserChangeDto> changes = findChanges(after, bufferSize + 1);
+
+    if (changes.size() > bufferSize || after < userChangeRepository.findPrunedThrough()) {
+      subscriber.overflow();
+      return;
+    }
+
+    for (UserChangeDto change : changes) {
+      send(subscriber, change);
+    }
+  }
+
+  /**
+   * Wakes up the poller once the changes of users committed now are visible, i.e. after the visibility delay.
+   * Called by the write paths after their commits, it does not block.
+   */
+  public void onChangesCommitted() {
+    schedulePoll(appConfig.getUserChangeVisibilityDelay().toNanos());
+  }
+
+  private void schedulePoll(long delayNanos) {
+    if (loaded && pollPending.compareAndSet(false, true)) {
+      pollExecutor.schedule(this::poll, delayNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Scheduled(initialDelayString = "${application.user-stream-heartbeat-interval}",
+             fixedDelayString = "${application.user-stream-heartbeat-interval}")
+  public void heartbeat() {
+    onChangesCommitted();
+
+    for (UserStreamSubscriber subscriber : subscribers) {
+      subscriber.requestHeartbeat();
+      schedule(subscriber);
+    }
+  }
+
+  /**
+   * Drops the subscribers whose write has been blocked longer than the send timeout. Their sender thread
+   * sends them a resync event as soon as the blocked write returns, or closes them if it fails.
+   */
+  @Scheduled(initialDelayString = "${application.user-stream-send-timeout}",
+             fixedDelayString = "${application.user-stream-send-timeout}")
+  public void dropStalled() {
+    Duration sendTimeout = appConfig.getUserStreamSendTimeout();
+
+    for (UserStreamSubscriber subscriber : subscribers) {
+      if (subscriber.isSendingLongerThan(sendTimeout)) {
+        subscribers.remove(subscriber);
+        subscriber.overflow();
+        stallCounter.increment();
+        log.debug("The user stream subscriber has not received an event within %s".formatted(sendTimeout));
+      }
+    }
+  }
+
+  private void poll() {
+    pollPending.set(false);
+
+    try {
+      if (subscribers.isEmpty()) {
+        lastBroadcastId.set(userChangeRepository.findLastIdBefore(visibleBefore()));
+        return;
+      }
+      int bufferSize = appConfig.getUserStreamBufferSize();
+      List<UserChangeDto> changes;
+
+      do {
+        changes = findChanges(lastBroadcastId.get(), bufferSize);
+
+        if (!changes.isEmpty()) {
+          lastBroadcastId.set(changes.get(changes.size() - 1).getId());
+          broadcast(changes);
+        }
+      } while (changes.size() == bufferSize);
+
+      if (userChangeRepository.findLastId() > lastBroadcastId.get()) {
+        schedulePoll(Math.max(appConfig.getUserChangeVisibilityDelay().toNanos(), MIN_REPOLL_DELAY_NANOS));
+      }
+    } catch (RuntimeException e) {
+      log.warn("The user changes after %s have not been broadcast".formatted(lastBroadcastId.get()), e);
+    }
+  }
+
+  private List<UserChangeDto> findChanges(long after, int limit) {
+    return userChangeRepository.findChanges(after, visibleBefore(), Limit.of(limit)).stream()
+        .map(userMapper::toChangeDto)
+        .toList();
+  }
+
+  private Instant visibleBefore() {
+    return Instant.now().minus(appConfig.getUserChangeVisibilityDelay());
+  }
+
+  private void broadcast(List<UserChangeDto> changes) {
+    for (UserStreamSubscriber subscriber : subscribers) {
+      changes.forEach(subscriber::offer);
+      schedule(subscriber);
+    }
+  }
+
+  private void schedule(UserStreamSubscriber subscriber) {
+    if (subscriber.hasPending() && subscriber.claim()) {
+      sendExecutor.execute(() -> drain(subscriber));
+    }
+  }
+
+  private void drain(UserStreamSubscriber subscriber) {
+    try {
+      do {
+        boolean open = sendPending(subscriber);
+        subscriber.release();
+
+        if (!open) {
+          return;
+        }
+      } while (subscriber.hasPending() && subscriber.claim());
+    } catch (IOException | RuntimeException e) {
+      close(subscriber, e);
+    }
+  }
+
+  private boolean sendPending(UserStreamSubscriber subscriber) throws IOException {
+    if (subscriber.takeHeartbeat()) {
+      write(subscriber, SseEmitter.event().comment(HEARTBEAT_COMMENT));
+    }
+    UserChangeDto change;
+
+    while (!subscriber.isOverflowed() && nonNull(change = subscriber.poll())) {
+      if (change.getId() > subscriber.getLastSentId()) {
+        send(subscriber, change);
+      }
+    }
+
+    if (subscriber.isOverflowed()) {
+      resync(subscriber);
+      return false;
+    }
+    return true;
+  }
+
+  private void send(UserStreamSubscriber subscriber, UserChangeDto change) throws IOException {
+    write(subscriber, SseEmitter.event()
+        .id(String.valueOf(change.getId()))
+        .data(change, MediaType.APPLICATION_JSON));
+    subscriber.setLastSentId(change.getId());
+  }
+
+  private void write(UserStreamSubscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+    subscriber.startSending();
+
+    try {
+      subscriber.getEmitter().send(event);
+    } finally {
+      subscriber.finishSending();
+    }
+  }
+
+  private void resync(UserStreamSubscriber subscriber) throws IOException {
+    subscribers.remove(subscriber);
+    resyncCounter.increment();
+    String lastSentId = String.valueOf(subscriber.getLastSentId());
+    log.debug("The user stream subscriber is resynced after the change %s".formatted(lastSentId));
+    write(subscriber, SseEmitter.event().id(lastSentId).name(RESYNC_EVENT).data(lastSentId));
+    subscriber.getEmitter().complete();
+  }
+
+  private void close(UserStreamSubscriber subscriber, Exception e) {
+    subscribers.remove(subscriber);
+    log.debug("The user stream subscriber is closed", e);
+    subscriber.getEmitter().completeWithError(e);
+  }
+
+  /**
+   * Creates the executor of the sender threads. It has no fixed number of threads, a subscriber being drained
+   * holds a thread of its own, so a write blocked by a slow client does not delay other subscribers.
+   * The number of platform threads is bounded by the number of concurrent streams, idle ones are released.
+   */
+  private static Executor createSendExecutor(Environment environment) {
+    return Threading.VIRTUAL.isActive(environment)
+           ? new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX)
+           : Executors.newCachedThreadPool(new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pollExecutor.shutdownNow();
+
+    if (sendExecutor instanceof ExecutorService executorService) {
+      executorService.shutdownNow();
+    }
+    subscribers.forEach(subscriber -> subscriber.getEmitter().complete());
+  }
+}
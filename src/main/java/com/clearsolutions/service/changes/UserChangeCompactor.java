@@ -0,0 +1,48 @@
+package com.clearsolutions.service.changes;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.repository.UserChangeRepository;
+import com.clearsolutions.repository.entity.UserChangeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Keeps the user change feed proportional to the number of users rather than to the number of changes.
+ * Compaction keeps only the last change of every user, it loses nothing since a change carries the current
+ * user's data. Pruning removes deletions older than the retention period, a consumer whose cursor is behind
+ * the pruned deletions gets 410 and has to sync from the start again.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class UserChangeCompactor {
+
+  private final UserChangeRepository userChangeRepository;
+  private final AppConfig appConfig;
+
+  @Scheduled(initialDelayString = "${application.user-change-compaction-interval}",
+             fixedDelayString = "${application.user-change-compaction-interval}")
+  @Transactional
+  public void compact() {
+    int compactedNumber = userChangeRepository.deleteSuperseded();
+    Instant retainedFrom = Instant.now().minus(appConfig.getUserChangeRetention());
+    Long lastDeletionId = userChangeRepository.findLastIdByTypeBefore(UserChangeType.DELETED, retainedFrom);
+    int prunedNumber = 0;
+
+    if (nonNull(lastDeletionId)) {
+      prunedNumber = userChangeRepository.deleteByTypeThrough(UserChangeType.DELETED, lastDeletionId);
+      userChangeRepository.advancePrunedThrough(lastDeletionId);
+    }
+    log.debug("%s superseded changes are compacted and %s deletions are pruned".formatted(compactedNumber,
+                                                                                         prunedNumber));
+  }
+}
@@ -0,0 +1,113 @@
+package com.clearsolutions.service.changes;
+
+import com.clearsolutions.service.dto.UserChangeDto;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A subscriber of the user stream with its own bounded buffer of changes waiting to be sent.
+ * The changes are sent by at most one thread at a time, the one that has claimed the subscriber.
+ *
+ * @author Oleksandr Semenchenko
+ */
+class UserStreamSubscriber {
+
+  @Getter
+  private final SseEmitter emitter;
+  private final BlockingQueue<UserChangeDto> buffer;
+  private final AtomicBoolean claimed = new AtomicBoolean();
+  private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+  private volatile boolean overflowed;
+  private volatile boolean replaying = true;
+  private volatile long lastSentId;
+  private volatile boolean sending;
+  private volatile long sendStartedAt;
+
+  UserStreamSubscriber(SseEmitter emitter, int bufferSize, long lastSentId) {
+    this.emitter = emitter;
+    this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    this.lastSentId = lastSentId;
+  }
+
+  /**
+   * Buffers a change without blocking. If the buffer is full the subscriber is marked as overflowed
+   * and the buffered changes are dropped, since the subscriber has to resync anyway.
+   *
+   * @param change - a committed change
+   */
+  void offer(UserChangeDto change) {
+    if (!overflowed && !buffer.offer(change)) {
+      overflowed = true;
+      buffer.clear();
+    }
+  }
+
+  UserChangeDto poll() {
+    return buffer.poll();
+  }
+
+  boolean hasPending() {
+    return !replaying && (overflowed || heartbeatPending.get() || !buffer.isEmpty());
+  }
+
+  boolean claim() {
+    return claimed.compareAndSet(false, true);
+  }
+
+  void release() {
+    claimed.set(false);
+  }
+
+  void requestHeartbeat() {
+    heartbeatPending.set(true);
+  }
+
+  boolean takeHeartbeat() {
+    return heartbeatPending.getAndSet(false);
+  }
+
+  boolean isOverflowed() {
+    return overflowed;
+  }
+
+  void overflow() {
+    overflowed = true;
+  }
+
+  void finishReplay() {
+    replaying = false;
+  }
+
+  void startSending() {
+    sendStartedAt = System.nanoTime();
+    sending = true;
+  }
+
+  void finishSending() {
+    sending = false;
+  }
+
+  /**
+   * Tells whether a write to the connection has been blocked for longer than the timeout,
+   * i.e. the client does not read its events.
+   *
+   * @param timeout - the time a write may take
+   * @return boolean
+   */
+  boolean isSendingLongerThan(Duration timeout) {
+    return sending && System.nanoTime() - sendStartedAt > timeout.toNanos();
+  }
+
+  long getLastSentId() {
+    return lastSentId;
+  }
+
+  void setLastSentId(long lastSentId) {
+    this.lastSentId = lastSentId;
+  }
+}
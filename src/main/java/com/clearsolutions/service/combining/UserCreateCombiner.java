@@ -0,0 +1,272 @@
+package com.clearsolutions.service.combining;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.BatchItemResult;
+import com.clearsolutions.service.dto.BatchResult;
+import com.clearsolutions.service.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Combines concurrent creates of single users into batches, so that many creates share one transaction
+ * and one commit. The callers put their users into a bounded queue and wait, one combiner thread takes
+ * the users arriving within a short window or until the batch is full and creates them with one batched
+ * insert. Under load the queue is never empty, so the batches grow with the request rate and the number
+ * of commits stays about the same. Each caller gets their own user or the error that creating the user
+ * alone would give: the users rejected in a batch, e.g. because of a duplicate email, and all the users
+ * of a failed batch are created one by one. If combining is disabled, the queue is full or the batch
+ * is not committed in time, the user is created directly by the caller. A user is taken either into
+ * a batch or by its caller, never by both.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@Log4j2
+public class UserCreateCombiner {
+
+  private static final String THREAD_NAME_PREFIX = "user-create-";
+  private static final String BATCH_SIZE_METRIC = "users.create.batch.size";
+  private static final String FALLBACKS_METRIC = "users.create.fallbacks";
+  private static final String TIMEOUTS_METRIC = "users.create.combining.timeouts";
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private final UserService userService;
+  private final boolean enabled;
+  private final long windowNanos;
+  private final long timeoutNanos;
+  private final int maxBatchSize;
+  private final BlockingQueue<PendingCreate> queue;
+  private final ExecutorService combinerExecutor;
+  private final DistributionSummary batchSizeSummary;
+  private final Counter fallbackCounter;
+  private final Counter timeoutCounter;
+  private volatile boolean running;
+
+  public UserCreateCombiner(UserService userService, AppConfig appConfig, MeterRegistry meterRegistry) {
+    this.userService = userService;
+    this.enabled = appConfig.isUserCreateCombiningEnabled();
+    this.windowNanos = appConfig.getUserCreateCombiningWindow().toNanos();
+    this.timeoutNanos = appConfig.getUserCreateCombiningTimeout().toNanos();
+    this.maxBatchSize = Math.min(appConfig.getUserCreateCombiningBatchSize(), appConfig.getMaxUserBatchSize());
+    this.queue = new ArrayBlockingQueue<>(appConfig.getUserCreateCombiningQueueSize());
+    this.combinerExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+    this.batchSizeSummary = DistributionSummary.builder(BATCH_SIZE_METRIC).register(meterRegistry);
+    this.fallbackCounter = meterRegistry.counter(FALLBACKS_METRIC);
+    this.timeoutCounter = meterRegistry.counter(TIMEOUTS_METRIC);
+
+    if (enabled) {
+      running = true;
+      combinerExecutor.execute(this::combine);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Creates a user in the next batch and waits until the batch is committed. Must not be called
+   * in a transaction, the user is created in the transaction of the batch. If the combiner has stopped
+   * or has not taken the user into a batch within the timeout, the user is created directly.
+   *
+   * @param userDto - user data
+   * @return UserDto
+   */
+  public UserDto createUser(UserDto userDto) {
+    PendingCreate pending = new PendingCreate(userDto);
+
+    if (!running || !queue.offer(pending)) {
+      return userService.createUser(userDto);
+    }
+
+    try {
+      return pending.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      return createAfterTimeout(pending);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof CombinerStoppedException) {
+        return userService.createUser(userDto);
+      }
+
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("The user create has been interrupted", e);
+    }
+  }
+
+  /**
+   * Takes the user back from the combiner and creates it directly. If the combiner has already taken
+   * the user into a batch, the caller waits for the batch instead, so the user is never created twice.
+   * Every batch taken is completed, even if the combiner fails, so the wait ends.
+   */
+  private UserDto createAfterTimeout(PendingCreate pending) {
+    if (pending.claim()) {
+      timeoutCounter.increment();
+      log.debug("The user has not been combined in time, it is created directly");
+      return userService.createUser(pending.user());
+    }
+    return pending.result().join();
+  }
+
+  private void combine() {
+    List<PendingCreate> batch = new ArrayList<>(maxBatchSize);
+
+    try {
+      while (running || !queue.isEmpty()) {
+        batch.clear();
+        collect(batch);
+        flush(batch);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Throwable e) {
+      log.error("The user create combiner has stopped", e);
+      throw e;
+    } finally {
+      running = false;
+      batch.forEach(pending -> pending.result().completeExceptionally(
+          new IllegalStateException("The user may not have been created, the combiner has stopped")));
+      releasePending();
+    }
+  }
+
+  /**
+   * Hands the users left in the queue back to their callers, which create them directly.
+   */
+  private void releasePending() {
+    List<PendingCreate> pendings = new ArrayList<>();
+    queue.drainTo(pendings);
+
+    for (PendingCreate pending : pendings) {
+      if (pending.claim()) {
+        pending.result().completeExceptionally(new CombinerStoppedException());
+      }
+    }
+  }
+
+  private void collect(List<PendingCreate> batch) throws InterruptedException {
+    PendingCreate first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+    if (isNull(first)) {
+      return;
+    }
+    take(first, batch);
+    long deadline = System.nanoTime() + windowNanos;
+
+    while (batch.size() < maxBatchSize) {
+      long remaining = deadline - System.nanoTime();
+      PendingCreate next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+
+      if (isNull(next)) {
+        return;
+      }
+      take(next, batch);
+    }
+  }
+
+  private void take(PendingCreate pending, List<PendingCreate> batch) {
+    if (pending.claim()) {
+      batch.add(pending);
+    }
+  }
+
+  private void flush(List<PendingCreate> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    batchSizeSummary.record(batch.size());
+    BatchResult result;
+
+    try {
+      result = userService.createUsers(batch.stream().map(PendingCreate::user).toList());
+    } catch (Throwable e) {
+      log.debug("The batch of %s users has failed, the users are created one by one".formatted(batch.size()), e);
+      batch.forEach(this::createAlone);
+      return;
+    }
+
+    for (BatchItemResult item : result.getItems()) {
+      PendingCreate pending = batch.get(item.getIndex());
+
+      if (isNull(item.getError())) {
+        pending.user().setId(item.getId());
+        pending.result().complete(pending.user());
+      } else {
+        createAlone(pending);
+      }
+    }
+  }
+
+  private void createAlone(PendingCreate pending) {
+    fallbackCounter.increment();
+
+    try {
+      pending.result().complete(userService.createUser(pending.user()));
+    } catch (Throwable e) {
+      pending.result().completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Stops the combiner after the queued users are created. The users put into the queue after the combiner
+   * has stopped are handed back to their callers.
+   *
+   * @throws InterruptedException if interrupted while waiting for the combiner
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    running = false;
+    combinerExecutor.shutdown();
+
+    if (!combinerExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      combinerExecutor.shutdownNow();
+      combinerExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    releasePending();
+  }
+
+  /**
+   * A user waiting to be created. It is claimed once, either by the combiner or by its caller.
+   */
+  private record PendingCreate(UserDto user, CompletableFuture<UserDto> result, AtomicBoolean claimed) {
+
+    PendingCreate(UserDto user) {
+      this(user, new CompletableFuture<>(), new AtomicBoolean());
+    }
+
+    boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+  }
+
+  /**
+   * Tells a caller that the combiner has not taken their user, so they create it themselves.
+   */
+  private static class CombinerStoppedException extends RuntimeException {
+  }
+}
@@ -0,0 +1,86 @@
+package com.clearsolutions.service.deleting;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.exceptionhandler.exceptions.BatchSizeViolationException;
+import com.clearsolutions.exceptionhandler.exceptions.SearchFilterRequiredException;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.DeleteResult;
+import com.clearsolutions.service.specification.SearchFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Deletes users in bulk chunk by chunk. Every chunk is deleted with one statement in its own transaction,
+ * so a large deletion neither holds locks nor grows the undo log until its end, and the caches and indexes
+ * are invalidated once per chunk. A failure stops the deletion, the chunks committed before it stay deleted.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class UserDeleter {
+
+  private final UserService userService;
+  private final AppConfig appConfig;
+
+  /**
+   * Deletes the users by IDs, the IDs of users that do not exist are skipped.
+   *
+   * @param userIds - IDs of users to delete
+   * @return DeleteResult
+   */
+  public DeleteResult deleteUsers(List<UUID> userIds) {
+    if (isNull(userIds) || userIds.isEmpty() || userIds.size() > appConfig.getMaxUserBatchSize()) {
+      throw new BatchSizeViolationException(appConfig.getMaxUserBatchSize());
+    }
+    int chunkSize = appConfig.getUserBatchChunkSize();
+    long deleted = 0;
+
+    for (int from = 0; from < userIds.size(); from += chunkSize) {
+      deleted += userService.deleteUsers(userIds.subList(from, Math.min(from + chunkSize, userIds.size())));
+    }
+    return new DeleteResult(deleted);
+  }
+
+  /**
+   * Deletes all users matching the filter. The filter must have at least one parameter, so that
+   * all users cannot be deleted by mistake. The users matching the filter after it has started,
+   * e.g. created concurrently, may be deleted too if their IDs follow the deleted ones.
+   *
+   * @param searchFilter - search parameters
+   * @return DeleteResult
+   */
+  public DeleteResult deleteUsers(SearchFilter searchFilter) {
+    if (!hasParameters(searchFilter)) {
+      throw new SearchFilterRequiredException();
+    }
+    int chunkSize = appConfig.getUserBatchChunkSize();
+    long deleted = 0;
+    UUID after = null;
+    List<UUID> chunk;
+
+    do {
+      chunk = userService.findUserIds(searchFilter, after, chunkSize);
+
+      if (!chunk.isEmpty()) {
+        deleted += userService.deleteUsers(chunk);
+        after = chunk.get(chunk.size() - 1);
+      }
+    } while (chunk.size() == chunkSize);
+    log.debug("%s users matching %s have been deleted".formatted(deleted, searchFilter));
+    return new DeleteResult(deleted);
+  }
+
+  private boolean hasParameters(SearchFilter searchFilter) {
+    return nonNull(searchFilter.getMinBirthdate()) || nonNull(searchFilter.getMaxBirthdate())
+        || searchFilter.hasTextTerms();
+  }
+}
@@ -0,0 +1,25 @@
+package com.clearsolutions.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+
+  private int index;
+  private UUID id;
+  private String error;
+
+  public static BatchItemResult created(int index, UUID id) {
+    return new BatchItemResult(index, id, null);
+  }
+
+  public static BatchItemResult failed(int index, String error) {
+    return new BatchItemResult(index, null, error);
+  }
+}
@@ -0,0 +1,24 @@
+package com.clearsolutions.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+
+  private int created;
+  private int failed;
+  private List<BatchItemResult> items;
+
+  public static BatchResult of(List<BatchItemResult> items) {
+    int failed = (int) items.stream().filter(item -> nonNull(item.getError())).count();
+    return new BatchResult(items.size() - failed, failed, items);
+  }
+}
@@ -0,0 +1,13 @@
+package com.clearsolutions.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeleteResult {
+
+  private long deleted;
+}
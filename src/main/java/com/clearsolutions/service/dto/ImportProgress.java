@@ -0,0 +1,24 @@
+package com.clearsolutions.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgress {
+
+  private int chunk;
+  private long processed;
+  private int created;
+  private int failed;
+  private List<BatchItemResult> errors;
+  private String error;
+
+  public static ImportProgress aborted(int chunk, long processed, String error) {
+    return new ImportProgress(chunk, processed, 0, 0, List.of(), error);
+  }
+}
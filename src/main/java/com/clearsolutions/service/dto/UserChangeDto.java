@@ -0,0 +1,22 @@
+package com.clearsolutions.service.dto;
+
+import com.clearsolutions.repository.entity.UserChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * A change of a user with the current user's data, which is null if the user does not exist anymore.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangeDto {
+
+  private Long id;
+  private UserChangeType type;
+  private UUID userId;
+  private UserDto user;
+}
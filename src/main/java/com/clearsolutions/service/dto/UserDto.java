@@ -1,5 +1,6 @@
 package com.clearsolutions.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -33,4 +34,10 @@ public class UserDto {
   private LocalDate birthdate;
   private String address;
   private String phoneNumber;
+
+  /**
+   * The version of the user's data, it is not a part of the body but is exposed as the ETag.
+   */
+  @JsonIgnore
+  private Long version;
 }
@@ -0,0 +1,157 @@
+package com.clearsolutions.service.importing;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.BatchItemResult;
+import com.clearsolutions.service.dto.BatchResult;
+import com.clearsolutions.service.dto.ImportProgress;
+import com.clearsolutions.service.dto.UserDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Imports users read incrementally from an upload. A reader thread splits the users into chunks
+ * and puts them into a bounded queue, the caller thread creates the users of each chunk in its own
+ * transaction and reports the progress. When the queue is full the reader stops reading the upload,
+ * so the memory is limited by the chunk size and the queue capacity regardless of the upload size.
+ * The readers block on the upload, so they are virtual threads when virtual threads are enabled.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@Log4j2
+public class UserImporter {
+
+  private static final List<UserDto> END_OF_USERS = Collections.emptyList();
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+  private static final String THREAD_NAME_PREFIX = "user-import-";
+
+  private final UserService userService;
+  private final AppConfig appConfig;
+  private final ExecutorService readerExecutor;
+
+  public UserImporter(UserService userService, AppConfig appConfig, Environment environment) {
+    this.userService = userService;
+    this.appConfig = appConfig;
+    this.readerExecutor = new ThreadPoolExecutor(0, appConfig.getMaxConcurrentUserImports(),
+                                                 1, TimeUnit.MINUTES, new SynchronousQueue<>(),
+                                                 createReaderThreadFactory(environment));
+  }
+
+  /**
+   * Imports the users reporting the result of each chunk. A failure of reading the users or of
+   * a database aborts the import, it is reported as the last progress, chunks committed before it stay.
+   *
+   * @param users - users read from an upload
+   * @param progressConsumer - a consumer of the progress of each chunk
+   */
+  public void importUsers(Iterator<UserDto> users, Consumer<ImportProgress> progressConsumer) {
+    BlockingQueue<List<UserDto>> chunks = new ArrayBlockingQueue<>(appConfig.getUserImportQueueCapacity());
+    int chunkNumber = 0;
+    long processed = 0;
+    Future<?> reading = null;
+
+    try {
+      reading = readerExecutor.submit(() -> readChunks(users, chunks));
+      List<UserDto> chunk;
+
+      while ((chunk = takeChunk(chunks, reading)) != END_OF_USERS) {
+        BatchResult batchResult = userService.createUsers(chunk);
+        progressConsumer.accept(toProgress(++chunkNumber, processed, batchResult));
+        processed += chunk.size();
+      }
+    } catch (RuntimeException e) {
+      log.debug("The import has been aborted after %s users".formatted(processed), e);
+      progressConsumer.accept(ImportProgress.aborted(chunkNumber + 1, processed, e.getMessage()));
+    } finally {
+      if (nonNull(reading)) {
+        reading.cancel(true);
+      }
+    }
+  }
+
+  private Void readChunks(Iterator<UserDto> users, BlockingQueue<List<UserDto>> chunks)
+      throws InterruptedException {
+    int chunkSize = appConfig.getUserImportChunkSize();
+    List<UserDto> chunk = new ArrayList<>(chunkSize);
+
+    while (users.hasNext()) {
+      chunk.add(users.next());
+
+      if (chunk.size() == chunkSize) {
+        chunks.put(chunk);
+        chunk = new ArrayList<>(chunkSize);
+      }
+    }
+
+    if (!chunk.isEmpty()) {
+      chunks.put(chunk);
+    }
+    chunks.put(END_OF_USERS);
+    return null;
+  }
+
+  private List<UserDto> takeChunk(BlockingQueue<List<UserDto>> chunks, Future<?> reading) {
+    try {
+      while (true) {
+        List<UserDto> chunk = chunks.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        if (nonNull(chunk)) {
+          return chunk;
+        }
+
+        if (reading.isDone() && chunks.isEmpty()) {
+          reading.get();
+          return END_OF_USERS;
+        }
+      }
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private ImportProgress toProgress(int chunkNumber, long offset, BatchResult batchResult) {
+    List<BatchItemResult> errors = batchResult.getItems().stream()
+        .filter(item -> nonNull(item.getError()))
+        .map(item -> BatchItemResult.failed((int) (offset + item.getIndex()), item.getError()))
+        .toList();
+    return new ImportProgress(chunkNumber, offset + batchResult.getItems().size(),
+                              batchResult.getCreated(), batchResult.getFailed(), errors, null);
+  }
+
+  private static ThreadFactory createReaderThreadFactory(Environment environment) {
+    return Threading.VIRTUAL.isActive(environment)
+           ? new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX).getVirtualThreadFactory()
+           : new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    readerExecutor.shutdownNow();
+  }
+}
@@ -0,0 +1,201 @@
+package com.clearsolutions.service.index;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A Bloom filter of the emails of all users, used to skip the database probe for an email that
+ * is definitely not taken. The filter is built at startup by streaming the emails from the database
+ * and the write paths put the emails into it before their transactions are committed, so it has
+ * no false negatives. Emails of deleted users stay in the filter and only cost a probe.
+ * Until the filter is built every email is reported as possibly taken.
+ * The UNIQUE constraint on the email column remains the final check.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@Log4j2
+public class EmailFilter {
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final int MIN_BITS = Long.SIZE;
+  private static final String CHECKS_METRIC = "users.email.filter.checks";
+  private static final String FALSE_POSITIVES_METRIC = "users.email.filter.false.positives";
+  private static final String FALSE_POSITIVE_RATE_METRIC = "users.email.filter.expected.false.positive.rate";
+  private static final String RESULT_TAG = "result";
+
+  private final UserRepository userRepository;
+  private final AtomicLongArray bits;
+  private final long bitsNumber;
+  private final int hashesNumber;
+  private final AtomicLong setBitsNumber = new AtomicLong();
+  private final Counter absentCounter;
+  private final Counter possiblyPresentCounter;
+  private final Counter falsePositiveCounter;
+  private volatile boolean loaded;
+
+  @Autowired
+  public EmailFilter(UserRepository userRepository, AppConfig appConfig, MeterRegistry meterRegistry) {
+    this(userRepository, appConfig.getEmailFilterExpectedUsers(), appConfig.getEmailFilterFalsePositiveRate(),
+         meterRegistry);
+  }
+
+  public EmailFilter(UserRepository userRepository, long expectedEmails, double falsePositiveRate,
+                     MeterRegistry meterRegistry) {
+    this.userRepository = userRepository;
+    double bitsPerEmail = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    this.bitsNumber = Math.max(MIN_BITS, (long) Math.ceil(expectedEmails * bitsPerEmail) / Long.SIZE * Long.SIZE);
+    this.bits = new AtomicLongArray(Math.toIntExact(bitsNumber / Long.SIZE));
+    this.hashesNumber = Math.max(1, (int) Math.round(bitsPerEmail * Math.log(2)));
+    this.absentCounter = meterRegistry.counter(CHECKS_METRIC, RESULT_TAG, "absent");
+    this.possiblyPresentCounter = meterRegistry.counter(CHECKS_METRIC, RESULT_TAG, "possibly_present");
+    this.falsePositiveCounter = meterRegistry.counter(FALSE_POSITIVES_METRIC);
+    Gauge.builder(FALSE_POSITIVE_RATE_METRIC, this, EmailFilter::expectedFalsePositiveRate)
+        .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void load() {
+    AtomicLong emailsNumber = new AtomicLong();
+
+    try (Stream<String> emails = userRepository.streamAllEmails()) {
+      emails.forEach(email -> {
+        put(email);
+        emailsNumber.incrementAndGet();
+      });
+    }
+    loaded = true;
+    log.debug("The email filter has been loaded with %s emails into %s bits".formatted(emailsNumber.get(),
+                                                                                     bitsNumber));
+  }
+
+  /**
+   * Puts the email of a created or updated user into the filter.
+   *
+   * @param email - an email
+   */
+  public void put(String email) {
+    if (isNull(email)) {
+      return;
+    }
+    long hash = hash(email);
+    int firstHash = (int) hash;
+    int secondHash = (int) (hash >>> Integer.SIZE);
+
+    for (int i = 1; i <= hashesNumber; i++) {
+      setBit(bitIndex(firstHash + i * secondHash));
+    }
+  }
+
+  /**
+   * Checks if the email may be taken. False means that no user has the email.
+   *
+   * @param email - an email
+   * @return boolean
+   */
+  public boolean mightContain(String email) {
+    boolean possiblyPresent = !loaded || containsHash(hash(email));
+    (possiblyPresent ? possiblyPresentCounter : absentCounter).increment();
+    return possiblyPresent;
+  }
+
+  /**
+   * Checks if the email is taken, the lookup in the database is only made if the filter
+   * cannot rule the email out.
+   *
+   * @param email - an email
+   * @param lookup - a check of the email in the database
+   * @return boolean
+   */
+  public boolean contains(String email, Predicate<String> lookup) {
+    if (!mightContain(email)) {
+      return false;
+    }
+    boolean present = lookup.test(email);
+
+    if (!present) {
+      recordFalsePositives(1);
+    }
+    return present;
+  }
+
+  /**
+   * Accounts for emails that the filter reported as possibly taken but the database did not contain.
+   *
+   * @param count - the number of such emails
+   */
+  public void recordFalsePositives(long count) {
+    if (loaded) {
+      falsePositiveCounter.increment(count);
+    }
+  }
+
+  private boolean containsHash(long hash) {
+    int firstHash = (int) hash;
+    int secondHash = (int) (hash >>> Integer.SIZE);
+
+    for (int i = 1; i <= hashesNumber; i++) {
+      long index = bitIndex(firstHash + i * secondHash);
+
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long bitIndex(int combinedHash) {
+    return (combinedHash & Integer.MAX_VALUE) % bitsNumber;
+  }
+
+  private void setBit(long index) {
+    int wordIndex = (int) (index >>> 6);
+    long mask = 1L << index;
+    long word;
+
+    do {
+      word = bits.get(wordIndex);
+
+      if ((word & mask) != 0) {
+        return;
+      }
+    } while (!bits.compareAndSet(wordIndex, word, word | mask));
+    setBitsNumber.incrementAndGet();
+  }
+
+  private double expectedFalsePositiveRate() {
+    return Math.pow((double) setBitsNumber.get() / bitsNumber, hashesNumber);
+  }
+
+  private static long hash(String email) {
+    long hash = FNV_OFFSET_BASIS;
+
+    for (byte b : email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+      hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
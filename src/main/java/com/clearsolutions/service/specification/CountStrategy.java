@@ -0,0 +1,22 @@
+package com.clearsolutions.service.specification;
+
+/**
+ * Defines how the total number of found users is obtained for a search page.
+ */
+public enum CountStrategy {
+
+  /**
+   * Runs a count query over the filtered range.
+   */
+  EXACT,
+
+  /**
+   * Estimates the total number from the birth year histogram without a count query.
+   */
+  ESTIMATE,
+
+  /**
+   * Returns a slice that only knows if there is a next page.
+   */
+  NONE
+}
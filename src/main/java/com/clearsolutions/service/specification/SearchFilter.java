@@ -7,6 +7,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @Data
 @Builder
@@ -19,4 +23,35 @@ public class SearchFilter {
 
   @Parameter(description = "a maximum value in the birthdate range", example = "2000-01-01")
   private LocalDate maxBirthdate;
+
+  @Parameter(description = "a case-insensitive prefix of an email", example = "john")
+  private String emailStartsWith;
+
+  @Parameter(description = "a case-insensitive part of an email, at least three characters", example = "doe")
+  private String emailContains;
+
+  @Parameter(description = "a case-insensitive prefix of a first or a last name", example = "jo")
+  private String nameStartsWith;
+
+  @Parameter(description = "a case-insensitive part of a first or a last name, at least three characters",
+             example = "ohn")
+  private String nameContains;
+
+  /**
+   * Checks if the filter has any email or name term which requires the trigram index.
+   *
+   * @return boolean
+   */
+  public boolean hasTextTerms() {
+    return toTextTerms().stream().anyMatch(term -> hasText(term));
+  }
+
+  /**
+   * Returns the email and name terms in a fixed order, e.g. to be a part of a cache key.
+   *
+   * @return List<String>
+   */
+  public List<String> toTextTerms() {
+    return Arrays.asList(emailStartsWith, emailContains, nameStartsWith, nameContains);
+  }
 }
@@ -0,0 +1,59 @@
+package com.clearsolutions.service.specification;
+
+import com.clearsolutions.exceptionhandler.exceptions.CursorNotValidException;
+import com.clearsolutions.repository.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * The position of the last user of a page in the keyset ordering by birthdate and ID.
+ * The cursor is passed to clients as an opaque URL-safe token.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Data
+@AllArgsConstructor
+public class UserCursor {
+
+  private static final String SEPARATOR = "_";
+
+  private LocalDate birthdate;
+  private UUID id;
+
+  public static UserCursor of(User user) {
+    return new UserCursor(user.getBirthdate(), user.getId());
+  }
+
+  /**
+   * Decodes the token received from a client.
+   *
+   * @param token - a token returned as nextCursor of a previous page
+   * @return UserCursor or null if the token is empty, i.e. the first page is requested
+   */
+  public static UserCursor decode(String token) {
+    if (!hasText(token)) {
+      return null;
+    }
+
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      String[] parts = value.split(SEPARATOR);
+      return new UserCursor(LocalDate.parse(parts[0]), UUID.fromString(parts[1]));
+    } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+      throw new CursorNotValidException(token);
+    }
+  }
+
+  public String encode() {
+    String value = birthdate + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
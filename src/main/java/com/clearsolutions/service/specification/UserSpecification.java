@@ -1,17 +1,36 @@
 package com.clearsolutions.service.specification;
 
+import com.clearsolutions.repository.entity.TrigramField;
 import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.entity.UserTrigram;
+import com.clearsolutions.repository.entity.UserTrigram_;
 import com.clearsolutions.repository.entity.User_;
+import com.clearsolutions.repository.trigram.Trigrams;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static org.springframework.util.StringUtils.hasText;
 
 public class UserSpecification {
 
+  private static final char LIKE_ESCAPE = '\\';
+  private static final String ANY = "%";
+
   public static Specification<User> getSpecification(SearchFilter searchFilter) {
     return (userRoot, userQuery, criteriaBuilder) -> {
       List<Predicate> predicates = new ArrayList<>();
@@ -25,7 +44,114 @@ public class UserSpecification {
         predicates.add(criteriaBuilder.greaterThanOrEqualTo(userRoot.get(User_.birthdate),
                                                             searchFilter.getMinBirthdate()));
       }
+
+      if (hasText(searchFilter.getEmailStartsWith())) {
+        String prefix = Trigrams.normalize(searchFilter.getEmailStartsWith());
+        predicates.add(hasPrefixTrigrams(userRoot, userQuery, criteriaBuilder, TrigramField.EMAIL, prefix));
+        predicates.add(like(criteriaBuilder, userRoot.get(User_.email), escape(prefix) + ANY));
+      }
+
+      if (hasText(searchFilter.getEmailContains())) {
+        String term = Trigrams.normalize(searchFilter.getEmailContains());
+        predicates.add(hasTrigrams(userRoot, userQuery, criteriaBuilder, TrigramField.EMAIL, Trigrams.ofTerm(term)));
+        predicates.add(like(criteriaBuilder, userRoot.get(User_.email), ANY + escape(term) + ANY));
+      }
+
+      if (hasText(searchFilter.getNameStartsWith())) {
+        String prefix = Trigrams.normalize(searchFilter.getNameStartsWith());
+        predicates.add(hasPrefixTrigrams(userRoot, userQuery, criteriaBuilder, TrigramField.NAME, prefix));
+        predicates.add(likeName(userRoot, criteriaBuilder, escape(prefix) + ANY));
+      }
+
+      if (hasText(searchFilter.getNameContains())) {
+        String term = Trigrams.normalize(searchFilter.getNameContains());
+        predicates.add(hasTrigrams(userRoot, userQuery, criteriaBuilder, TrigramField.NAME, Trigrams.ofTerm(term)));
+        predicates.add(likeName(userRoot, criteriaBuilder, ANY + escape(term) + ANY));
+      }
       return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
     };
   }
+
+  /**
+   * Selects candidates having all trigrams of a prefix in the index. A single character prefix has
+   * no complete anchored trigram, so it is looked up by a range of trigrams starting with it.
+   */
+  private static Predicate hasPrefixTrigrams(Root<User> userRoot, CriteriaQuery<?> userQuery,
+                                             CriteriaBuilder criteriaBuilder, TrigramField field, String prefix) {
+    Set<String> trigrams = Trigrams.ofPrefix(prefix);
+
+    if (!trigrams.isEmpty()) {
+      return hasTrigrams(userRoot, userQuery, criteriaBuilder, field, trigrams);
+    }
+    Subquery<UUID> subquery = userQuery.subquery(UUID.class);
+    Root<UserTrigram> trigramRoot = subquery.from(UserTrigram.class);
+    subquery.select(trigramRoot.get(UserTrigram_.userId))
+        .where(criteriaBuilder.equal(trigramRoot.get(UserTrigram_.field), field),
+               criteriaBuilder.like(trigramRoot.get(UserTrigram_.trigram),
+                                    escape(Trigrams.START + prefix) + ANY, LIKE_ESCAPE));
+    return userRoot.get(User_.id).in(subquery);
+  }
+
+  /**
+   * Selects candidates having all the trigrams in the index. The candidates are a superset of the matching
+   * users, e.g. the trigrams of a name term can be split between the first and the last names,
+   * so the found users are checked by LIKE afterward, which is cheap for the few candidates.
+   */
+  private static Predicate hasTrigrams(Root<User> userRoot, CriteriaQuery<?> userQuery,
+                                       CriteriaBuilder criteriaBuilder, TrigramField field, Set<String> trigrams) {
+    Subquery<UUID> subquery = userQuery.subquery(UUID.class);
+    Root<UserTrigram> trigramRoot = subquery.from(UserTrigram.class);
+    Path<String> trigram = trigramRoot.get(UserTrigram_.trigram);
+    subquery.select(trigramRoot.get(UserTrigram_.userId))
+        .where(criteriaBuilder.equal(trigramRoot.get(UserTrigram_.field), field), trigram.in(trigrams))
+        .groupBy(trigramRoot.get(UserTrigram_.userId))
+        .having(criteriaBuilder.equal(criteriaBuilder.countDistinct(trigram), (long) trigrams.size()));
+    return userRoot.get(User_.id).in(subquery);
+  }
+
+  private static Predicate likeName(Root<User> userRoot, CriteriaBuilder criteriaBuilder, String pattern) {
+    return criteriaBuilder.or(like(criteriaBuilder, userRoot.get(User_.firstName), pattern),
+                              like(criteriaBuilder, userRoot.get(User_.lastName), pattern));
+  }
+
+  private static Predicate like(CriteriaBuilder criteriaBuilder, Expression<String> value, String pattern) {
+    return criteriaBuilder.like(criteriaBuilder.lower(value), pattern, LIKE_ESCAPE);
+  }
+
+  private static String escape(String term) {
+    return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  /**
+   * Extends the search filter with a seek predicate that selects users following the cursor
+   * in the ordering by birthdate and ID in the given direction.
+   *
+   * @param searchFilter - search parameters
+   * @param cursor - the last user of the previous page, null for the first page
+   * @param direction - the ordering direction
+   * @return Specification<User>
+   */
+  public static Specification<User> getSpecification(SearchFilter searchFilter, UserCursor cursor,
+                                                     Direction direction) {
+    Specification<User> specification = getSpecification(searchFilter);
+    return isNull(cursor) ? specification : specification.and(getSeekSpecification(cursor, direction));
+  }
+
+  private static Specification<User> getSeekSpecification(UserCursor cursor, Direction direction) {
+    return (userRoot, userQuery, criteriaBuilder) -> {
+      Path<LocalDate> birthdate = userRoot.get(User_.birthdate);
+      Path<UUID> id = userRoot.get(User_.id);
+
+      if (direction.isDescending()) {
+        return criteriaBuilder.or(
+            criteriaBuilder.lessThan(birthdate, cursor.getBirthdate()),
+            criteriaBuilder.and(criteriaBuilder.equal(birthdate, cursor.getBirthdate()),
+                                criteriaBuilder.lessThan(id, cursor.getId())));
+      }
+      return criteriaBuilder.or(
+          criteriaBuilder.greaterThan(birthdate, cursor.getBirthdate()),
+          criteriaBuilder.and(criteriaBuilder.equal(birthdate, cursor.getBirthdate()),
+                              criteriaBuilder.greaterThan(id, cursor.getId())));
+    };
+  }
 }
@@ -0,0 +1,124 @@
+package com.clearsolutions.service.statistics;
+
+import com.clearsolutions.repository.UserRepository;
+import com.clearsolutions.repository.projection.BirthYearCount;
+import com.clearsolutions.service.utils.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Keeps the number of users per birth year in memory to estimate the number of users
+ * in a birthdate range without a count query. The histogram is loaded at startup
+ * and is kept up to date by the write paths after their transactions are committed.
+ *
+ * @author Oleksandr Semenchenko
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class BirthYearHistogram {
+
+  private final UserRepository userRepository;
+  private final NavigableMap<Integer, AtomicLong> counts = new ConcurrentSkipListMap<>();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    counts.clear();
+
+    for (BirthYearCount birthYearCount : userRepository.countByBirthYear()) {
+      counts.put(birthYearCount.getYear(), new AtomicLong(birthYearCount.getCount()));
+    }
+    log.debug("The birth year histogram has been loaded with %s years".formatted(counts.size()));
+  }
+
+  /**
+   * Accounts for a user whose birthdate changed from the previous value to the new one.
+   * A null value means that the user has been created or deleted respectively.
+   *
+   * @param previousBirthdate - the birthdate before the change
+   * @param newBirthdate - the birthdate after the change
+   */
+  public void update(LocalDate previousBirthdate, LocalDate newBirthdate) {
+    TransactionUtils.runAfterCommit(() -> {
+      if (nonNull(previousBirthdate)) {
+        add(previousBirthdate.getYear(), -1);
+      }
+
+      if (nonNull(newBirthdate)) {
+        add(newBirthdate.getYear(), 1);
+      }
+    });
+  }
+
+  /**
+   * Accounts for created users.
+   *
+   * @param birthdates - birthdates of created users
+   */
+  public void addAll(Collection<LocalDate> birthdates) {
+    TransactionUtils.runAfterCommit(() -> birthdates.forEach(birthdate -> add(birthdate.getYear(), 1)));
+  }
+
+  /**
+   * Accounts for deleted users.
+   *
+   * @param birthdates - birthdates of deleted users
+   */
+  public void removeAll(Collection<LocalDate> birthdates) {
+    TransactionUtils.runAfterCommit(() -> birthdates.forEach(birthdate -> add(birthdate.getYear(), -1)));
+  }
+
+  private void add(int year, long delta) {
+    counts.computeIfAbsent(year, key -> new AtomicLong()).addAndGet(delta);
+  }
+
+  /**
+   * Estimates the number of users born in the range assuming that birthdates are distributed
+   * uniformly inside a year. A null boundary means that the range is open from that side.
+   *
+   * @param minBirthdate - a minimal value in the birthdate range
+   * @param maxBirthdate - a maximum value in the birthdate range
+   * @return long
+   */
+  public long estimate(LocalDate minBirthdate, LocalDate maxBirthdate) {
+    if (counts.isEmpty()) {
+      return 0;
+    }
+    int fromYear = isNull(minBirthdate) ? counts.firstKey() : minBirthdate.getYear();
+    int toYear = isNull(maxBirthdate) ? counts.lastKey() : maxBirthdate.getYear();
+
+    if (fromYear > toYear) {
+      return 0;
+    }
+    double estimate = 0;
+
+    for (Map.Entry<Integer, AtomicLong> yearCount : counts.subMap(fromYear, true, toYear, true).entrySet()) {
+      estimate += yearCount.getValue().get() * yearFraction(yearCount.getKey(), minBirthdate, maxBirthdate);
+    }
+    return Math.max(0, Math.round(estimate));
+  }
+
+  private double yearFraction(int year, LocalDate minBirthdate, LocalDate maxBirthdate) {
+    LocalDate yearStart = LocalDate.ofYearDay(year, 1);
+    LocalDate nextYearStart = yearStart.plusYears(1);
+    LocalDate from = nonNull(minBirthdate) && minBirthdate.isAfter(yearStart) ? minBirthdate : yearStart;
+    LocalDate to = nonNull(maxBirthdate) && maxBirthdate.isBefore(nextYearStart)
+        ? maxBirthdate.plusDays(1)
+        : nextYearStart;
+    return (double) ChronoUnit.DAYS.between(from, to) / yearStart.lengthOfYear();
+  }
+}
@@ -0,0 +1,46 @@
+package com.clearsolutions.service.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public abstract class TransactionUtils {
+
+  /**
+   * Runs the action after the commit of the current transaction or immediately if there is no transaction.
+   *
+   * @param action - an action to run
+   */
+  public static void runAfterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+
+  /**
+   * Runs the action after the commit or the rollback of the current transaction or immediately if there is
+   * no transaction.
+   *
+   * @param action - an action to run
+   */
+  public static void runAfterCompletion(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+        @Override
+        public void afterCompletion(int status) {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1 @@
+CREATE INDEX users_birthdate_id_idx ON users (birthdate, id);
@@ -0,0 +1 @@
+ALTER TABLE users ALTER COLUMN id SET DATA TYPE UUID;
@@ -0,0 +1,6 @@
+CREATE TABLE replication_heartbeat (
+	id INT,
+	beat TIMESTAMP(3) WITH TIME ZONE NOT NULL,
+	PRIMARY KEY (id)
+);
+INSERT INTO replication_heartbeat(id, beat) VALUES (1, CURRENT_TIMESTAMP(3));
@@ -0,0 +1,19 @@
+CREATE TABLE user_trigrams (
+	field TINYINT NOT NULL,
+	trigram VARCHAR(3) NOT NULL,
+	user_id UUID NOT NULL,
+	PRIMARY KEY (field, trigram, user_id)
+);
+CREATE INDEX user_trigrams_user_id_idx ON user_trigrams (user_id);
+
+-- field 0 is the email, 1 is the first and the last name, values are anchored with ^ and $
+INSERT INTO user_trigrams(field, trigram, user_id)
+SELECT DISTINCT v.field, SUBSTRING(v.anchored_value, r.X, 3), v.id
+FROM (
+	SELECT id, 0 AS field, CONCAT('^', LOWER(email), '$') AS anchored_value FROM users
+	UNION ALL
+	SELECT id, 1, CONCAT('^', LOWER(first_name), '$') FROM users
+	UNION ALL
+	SELECT id, 1, CONCAT('^', LOWER(last_name), '$') FROM users
+) v
+JOIN SYSTEM_RANGE(1, 258) r ON r.X <= CHAR_LENGTH(v.anchored_value) - 2;
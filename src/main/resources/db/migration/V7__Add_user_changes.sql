@@ -0,0 +1,20 @@
+CREATE TABLE user_changes (
+	id BIGINT AUTO_INCREMENT,
+	user_id UUID NOT NULL,
+	type TINYINT NOT NULL,
+	occurred_at TIMESTAMP(3) WITH TIME ZONE NOT NULL,
+	PRIMARY KEY (id)
+);
+CREATE INDEX user_changes_user_id_idx ON user_changes (user_id);
+
+-- the last change ID whose tombstone was pruned, consumers behind it have to sync from the start
+CREATE TABLE user_change_horizon (
+	id INT,
+	pruned_through BIGINT NOT NULL,
+	PRIMARY KEY (id)
+);
+INSERT INTO user_change_horizon(id, pruned_through) VALUES (1, 0);
+
+-- type 0 is CREATED, so consumers syncing from the start receive the existing users
+INSERT INTO user_changes(user_id, type, occurred_at)
+SELECT id, 0, CURRENT_TIMESTAMP(3) FROM users ORDER BY id;
@@ -1,10 +1,14 @@
 package com.clearsolutions.controller;
 
 import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.config.BinaryFormatConfig;
 import com.clearsolutions.service.dto.UserDto;
 import com.clearsolutions.TestDataGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -12,19 +16,25 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -38,7 +48,12 @@ public class UserControllerIntegrationTest {
   private static final String V1 = "/v1";
   private static final String USERS_URL = "/users";
   private static final String USER_URL = "/users/{userId}";
+  private static final String USERS_BATCH_URL = "/users:batch";
   private static final String LOCATION_HEADER_FIELD = "Location";
+  private static final String ETAG_HEADER_FIELD = "ETag";
+  private static final String IF_NONE_MATCH_HEADER_FIELD = "If-None-Match";
+  private static final String IF_MATCH_HEADER_FIELD = "If-Match";
+  private static final String INITIAL_ETAG = "\"0\"";
   private static final String EMAIL = "email@com";
   private static final String FIRST_NAME = "Linus";
   private static final String LAST_NAME = "Torvalds";
@@ -57,6 +72,9 @@ public class UserControllerIntegrationTest {
   @Autowired
   private AppConfig appConfig;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   @Test
   void updateUserPartially_shouldReturnStatus200_whenUserIsInDb() throws Exception {
     UserDto userDto = buildUserDtoWithValidBirthdate();
@@ -67,6 +85,37 @@ public class UserControllerIntegrationTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void mergePatchUser_shouldRemoveAddress_whenAddressIsNullInPatch() throws Exception {
+    String patch = """
+        {
+          "lastName": "Kernighan",
+          "address": null
+        }
+        """;
+
+    mockMvc.perform(patch(V1 + USER_URL, USER_ID).contentType("application/merge-patch+json").content(patch))
+        .andExpect(status().isOk());
+    mockMvc.perform(get(V1 + USERS_URL).accept(APPLICATION_JSON)
+            .param("minBirthdate", BIRTHDATE)
+            .param("maxBirthdate", BIRTHDATE))
+        .andExpect(jsonPath("$.content[0].lastName", is("Kernighan")))
+        .andExpect(jsonPath("$.content[0].address", nullValue()))
+        .andExpect(jsonPath("$.content[0].phoneNumber", is(PHONE_NUMBER)));
+  }
+
+  @Test
+  void mergePatchUser_shouldReturnStatus400_whenRequiredPropertyIsNullInPatch() throws Exception {
+    String patch = """
+        {
+          "email": null
+        }
+        """;
+
+    mockMvc.perform(patch(V1 + USER_URL, USER_ID).contentType("application/merge-patch+json").content(patch))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void updateUser_shouldReturnStatus200_whenUserIsInDb() throws Exception {
     UserDto userDto = buildUserDtoWithValidBirthdate();
@@ -76,6 +125,54 @@ public class UserControllerIntegrationTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  void updateUser_shouldReturnStatus200_whenUserKeepsTheirEmail() throws Exception {
+    UserDto userDto = buildUserDtoWithValidBirthdate();
+    userDto.setEmail(EMAIL);
+    String requestBody = objectMapper.writeValueAsString(userDto);
+
+    mockMvc.perform(put(V1 + USER_URL, USER_ID).contentType(APPLICATION_JSON).content(requestBody))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void updateUser_shouldUpdateUserAndChangeETag_whenIfMatchHasCurrentVersion() throws Exception {
+    UserDto userDto = buildUserDtoWithValidBirthdate();
+    String requestBody = objectMapper.writeValueAsString(userDto);
+
+    mockMvc.perform(put(V1 + USER_URL, USER_ID).contentType(APPLICATION_JSON)
+            .header(IF_MATCH_HEADER_FIELD, INITIAL_ETAG)
+            .content(requestBody))
+        .andExpect(status().isOk());
+    mockMvc.perform(get(V1 + USER_URL, USER_ID).accept(APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string(ETAG_HEADER_FIELD, "\"1\""))
+        .andExpect(jsonPath("$.email", is(userDto.getEmail())));
+  }
+
+  @Test
+  void updateUser_shouldReturnStatus412_whenIfMatchHasOutdatedVersion() throws Exception {
+    UserDto userDto = buildUserDtoWithValidBirthdate();
+    String requestBody = objectMapper.writeValueAsString(userDto);
+
+    mockMvc.perform(put(V1 + USER_URL, USER_ID).contentType(APPLICATION_JSON)
+            .header(IF_MATCH_HEADER_FIELD, "\"5\"")
+            .content(requestBody))
+        .andExpect(status().isPreconditionFailed());
+  }
+
+  @Test
+  void updateUserPartially_shouldReturnStatus409_whenEmailBelongsToAnotherUser() throws Exception {
+    String requestBody = """
+        {
+          "email": "dennis@com"
+        }
+        """;
+
+    mockMvc.perform(patch(V1 + USER_URL, USER_ID).contentType(APPLICATION_JSON).content(requestBody))
+        .andExpect(status().isConflict());
+  }
+
   @Test
   void deleteUser_shouldReturnStatus204AndDeleteUser_whenUserIsInDb() throws Exception {
     String userIdInDb = "33e1b468-f030-431e-b48c-09e6d584b51c";
@@ -83,6 +180,143 @@ public class UserControllerIntegrationTest {
         .andExpect(status().isNoContent());
   }
 
+  @Test
+  void deleteUser_shouldReturnStatus404_whenUserIsNotInDb() throws Exception {
+    mockMvc.perform(delete(V1 + USER_URL, "776c0aed-72fa-45d8-a65a-8f3ae131097f"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void deleteUsers_shouldDeleteExistingUsers_whenBatchHasUnknownIds() throws Exception {
+    String requestBody = objectMapper.writeValueAsString(
+        List.of(USER_ID, "33e1b468-f030-431e-b48c-09e6d584b51c", "776c0aed-72fa-45d8-a65a-8f3ae131097f"));
+
+    mockMvc.perform(post(V1 + "/users:batchDelete").contentType(APPLICATION_JSON).content(requestBody))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.deleted", is(2)));
+
+    mockMvc.perform(get(V1 + USER_URL, USER_ID).accept(APPLICATION_JSON))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void deleteMatchingUsers_shouldDeleteUsersInBirthdateRange_whenFilterIsGiven() throws Exception {
+    mockMvc.perform(post(V1 + "/users:deleteMatching")
+            .param("minBirthdate", "1965-01-01")
+            .param("maxBirthdate", "1975-01-01"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.deleted", is(2)));
+
+    mockMvc.perform(get(V1 + USERS_URL).accept(APPLICATION_JSON).param("maxBirthdate", "1975-01-01"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content", hasSize(1)));
+  }
+
+  @Test
+  void deleteMatchingUsers_shouldReturnStatus400_whenFilterIsEmpty() throws Exception {
+    mockMvc.perform(post(V1 + "/users:deleteMatching"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void getUserChanges_shouldReturnDeletion_whenUserIsDeleted() throws Exception {
+    String userIdInDb = "33e1b468-f030-431e-b48c-09e6d584b51c";
+    mockMvc.perform(delete(V1 + USER_URL, userIdInDb))
+        .andExpect(status().isNoContent());
+
+    mockMvc.perform(get(V1 + USERS_URL + "/changes").accept(APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content", hasSize(1)))
+        .andExpect(jsonPath("$.content[0].type", is("DELETED")))
+        .andExpect(jsonPath("$.content[0].userId", is(userIdInDb)))
+        .andExpect(jsonPath("$.content[0].user", nullValue()))
+        .andExpect(jsonPath("$.nextCursor", notNullValue()));
+  }
+
+  @Test
+  void getUserChanges_shouldReturnStatus400_whenCursorIsNotValid() throws Exception {
+    mockMvc.perform(get(V1 + USERS_URL + "/changes").param("after", "abc").accept(APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void searchUsers_shouldReturnStatus304_whenPageETagMatches() throws Exception {
+    String eTag = mockMvc.perform(get(V1 + USERS_URL).accept(APPLICATION_JSON).param("sort", "email"))
+        .andExpect(status().isOk())
+        .andExpect(header().exists(ETAG_HEADER_FIELD))
+        .andReturn()
+        .getResponse()
+        .getHeader(ETAG_HEADER_FIELD);
+
+    mockMvc.perform(get(V1 + USERS_URL).accept(APPLICATION_JSON).param("sort", "email")
+            .header(IF_NONE_MATCH_HEADER_FIELD, eTag))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void getUser_shouldReturnStatus200AndETag_whenUserIsInDb() throws Exception {
+    mockMvc.perform(get(V1 + USER_URL, USER_ID).accept(APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string(ETAG_HEADER_FIELD, INITIAL_ETAG))
+        .andExpect(jsonPath("$.email", is(EMAIL)))
+        .andExpect(jsonPath("$.version").doesNotExist());
+  }
+
+  @Test
+  void getUser_shouldReturnCbor_whenCborIsAccepted() throws Exception {
+    byte[] body = mockMvc.perform(get(V1 + USER_URL, USER_ID).accept(MediaType.APPLICATION_CBOR))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+        .andReturn()
+        .getResponse()
+        .getContentAsByteArray();
+
+    UserDto user = BinaryFormatConfig.cborMapper(objectMapper).readValue(body, UserDto.class);
+    assertEquals(EMAIL, user.getEmail());
+    assertEquals(LocalDate.parse(BIRTHDATE), user.getBirthdate());
+  }
+
+  @Test
+  void searchUsers_shouldReturnSmile_whenSmileIsPreferred() throws Exception {
+    byte[] body = mockMvc.perform(get(V1 + USERS_URL)
+            .header("Accept", "application/json;q=0.5, " + BinaryFormatConfig.APPLICATION_SMILE_VALUE)
+            .param("minBirthdate", "1965-01-01")
+            .param("maxBirthdate", "1970-01-01"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(BinaryFormatConfig.APPLICATION_SMILE))
+        .andReturn()
+        .getResponse()
+        .getContentAsByteArray();
+
+    String email = BinaryFormatConfig.smileMapper(objectMapper).readTree(body).at("/content/0/email").asText();
+    assertEquals(EMAIL, email);
+  }
+
+  @Test
+  void getUser_shouldReturnStatus304WithoutBody_whenETagMatches() throws Exception {
+    mockMvc.perform(get(V1 + USER_URL, USER_ID).accept(APPLICATION_JSON)
+            .header(IF_NONE_MATCH_HEADER_FIELD, INITIAL_ETAG))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  void getUser_shouldReturnStatus404_whenUserIsNotInDb() throws Exception {
+    mockMvc.perform(get(V1 + USER_URL, "776c0aed-72fa-45d8-a65a-8f3ae131097f").accept(APPLICATION_JSON))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void getUser_shouldCountError_whenUserIsNotInDb() throws Exception {
+    Counter notFoundErrors = meterRegistry.counter("users.errors", "exception", "UserNotFoundException");
+    double errorsBefore = notFoundErrors.count();
+
+    mockMvc.perform(get(V1 + USER_URL, "776c0aed-72fa-45d8-a65a-8f3ae131097f").accept(APPLICATION_JSON))
+        .andExpect(status().isNotFound());
+
+    assertEquals(errorsBefore + 1, notFoundErrors.count());
+  }
+
   @Test
   void searchUsers_shouldReturnStatus200AndBody_whenBirthdayPeriodIsValid() throws Exception {
     String maxBirthdate = "1970-01-01";
@@ -100,6 +334,28 @@ public class UserControllerIntegrationTest {
         .andExpect(jsonPath("$.content[0].phoneNumber", is(PHONE_NUMBER)));
   }
 
+  @Test
+  void scrollUsers_shouldReturnAllUsersPageByPage_whenNextCursorIsFollowed() throws Exception {
+    String pageSize = "2";
+    MvcResult firstPage = mockMvc.perform(get(V1 + USERS_URL).accept(APPLICATION_JSON)
+            .param("cursor", "")
+            .param("size", pageSize))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content", hasSize(2)))
+        .andExpect(jsonPath("$.content[0].birthdate", is("1980-06-28")))
+        .andExpect(jsonPath("$.nextCursor", notNullValue()))
+        .andReturn();
+    String nextCursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+    mockMvc.perform(get(V1 + USERS_URL).accept(APPLICATION_JSON)
+            .param("cursor", nextCursor)
+            .param("size", pageSize))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content", hasSize(2)))
+        .andExpect(jsonPath("$.content[0].birthdate", is(BIRTHDATE)))
+        .andExpect(jsonPath("$.nextCursor", nullValue()));
+  }
+
   @Test
   void createUser_shouldReturnStatus201_whenRequested() throws Exception {
     UserDto userDto = buildUserDtoWithValidBirthdate();
@@ -110,6 +366,24 @@ public class UserControllerIntegrationTest {
         .andExpect(header().string(LOCATION_HEADER_FIELD, containsString(USERS_URL)));
   }
 
+  @Test
+  void createUsers_shouldCreateValidUsersAndReportErrors_whenBatchHasNotUniqueEmails() throws Exception {
+    UserDto newUser = buildUserDtoWithValidBirthdate();
+    UserDto userWithExistingEmail = buildUserDtoWithValidBirthdate();
+    userWithExistingEmail.setEmail(EMAIL);
+    UserDto userWithDuplicatedEmail = buildUserDtoWithValidBirthdate();
+    String requestBody = objectMapper.writeValueAsString(
+        List.of(newUser, userWithExistingEmail, userWithDuplicatedEmail));
+
+    mockMvc.perform(post(V1 + USERS_BATCH_URL).contentType(APPLICATION_JSON).content(requestBody))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.created", is(1)))
+        .andExpect(jsonPath("$.failed", is(2)))
+        .andExpect(jsonPath("$.items[0].id", notNullValue()))
+        .andExpect(jsonPath("$.items[1].error", containsString(EMAIL)))
+        .andExpect(jsonPath("$.items[2].error", containsString(newUser.getEmail())));
+  }
+
   private UserDto buildUserDtoWithValidBirthdate() {
     UserDto userDto = TestDataGenerator.generateUserDto();
     LocalDate validUserBirthdate = generateValidUserBirthdate();
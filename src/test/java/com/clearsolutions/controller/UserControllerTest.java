@@ -6,6 +6,8 @@ import com.clearsolutions.exceptionhandler.exceptions.PeriodNotValidException;
 import com.clearsolutions.exceptionhandler.exceptions.UserAgeViolationException;
 import com.clearsolutions.exceptionhandler.exceptions.UserNotFoundException;
 import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.cache.UserSearchResponseCache;
+import com.clearsolutions.service.combining.UserCreateCombiner;
 import com.clearsolutions.service.dto.UserDto;
 import com.clearsolutions.service.specification.SearchFilter;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -19,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Set;
@@ -57,6 +60,12 @@ public class UserControllerTest {
   @MockBean
   private UserService userService;
 
+  @MockBean
+  private UserSearchResponseCache userSearchResponseCache;
+
+  @MockBean
+  private UserCreateCombiner userCreateCombiner;
+
   private String requestBody;
   private UserDto userDto;
 
@@ -184,7 +193,7 @@ public class UserControllerTest {
 
   @Test
   void searchUsers_shouldReturnStatus400_whenSearchParametersAreNotValid() throws Exception {
-    when(userService.searchUsers(any(SearchFilter.class), any(Pageable.class)))
+    when(userSearchResponseCache.searchUsers(any(SearchFilter.class), any(Pageable.class), any(MediaType.class)))
         .thenThrow(PeriodNotValidException.class);
     mockMvc.perform(get(V1 + USERS_URL).accept(APPLICATION_JSON)
         .param("maxBirthdate", MAX_BIRTHDATE)
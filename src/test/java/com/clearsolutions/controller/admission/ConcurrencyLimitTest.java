@@ -0,0 +1,28 @@
+package com.clearsolutions.controller.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimitTest {
+
+  private static final Duration TIMEOUT = Duration.ofMillis(10);
+
+  @Test
+  void tryAcquire_shouldRejectRequest_whenLimitIsSaturated() throws InterruptedException {
+    ConcurrencyLimit limit = new ConcurrencyLimit(2, 0);
+
+    assertTrue(limit.tryAcquire(TIMEOUT));
+    assertTrue(limit.tryAcquire(TIMEOUT));
+    assertFalse(limit.tryAcquire(TIMEOUT));
+    assertEquals(2, limit.getInFlight());
+
+    limit.release();
+
+    assertTrue(limit.tryAcquire(TIMEOUT));
+  }
+}
@@ -0,0 +1,42 @@
+package com.clearsolutions.controller.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+
+  private static final double CAPACITY = 10;
+  private static final double TOKENS_PER_SECOND = 5;
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  void tryConsume_shouldAdmitBurstAndReturnWaitTime_whenBucketIsEmptied() {
+    TokenBucket tokenBucket = new TokenBucket(CAPACITY, TOKENS_PER_SECOND, 0);
+
+    assertEquals(0, tokenBucket.tryConsume(CAPACITY, 0));
+    long waitNanos = tokenBucket.tryConsume(1, 0);
+    assertTrue(Math.abs(SECOND / 5 - waitNanos) <= 1);
+    assertEquals(0, tokenBucket.tryConsume(1, SECOND / 4));
+  }
+
+  @Test
+  void tryConsume_shouldCapCostByCapacity_whenRequestCostsMoreThanCapacity() {
+    TokenBucket tokenBucket = new TokenBucket(CAPACITY, TOKENS_PER_SECOND, 0);
+
+    assertEquals(0, tokenBucket.tryConsume(CAPACITY * 5, 0));
+    assertTrue(tokenBucket.tryConsume(CAPACITY * 5, SECOND) > 0);
+    assertEquals(0, tokenBucket.tryConsume(CAPACITY * 5, 2 * SECOND));
+  }
+
+  @Test
+  void refund_shouldReturnTokens_whenRequestIsRejectedByConcurrencyLimit() {
+    TokenBucket tokenBucket = new TokenBucket(CAPACITY, TOKENS_PER_SECOND, 0);
+
+    tokenBucket.tryConsume(CAPACITY, 0);
+    tokenBucket.refund(CAPACITY);
+
+    assertEquals(0, tokenBucket.tryConsume(CAPACITY, 0));
+  }
+}
@@ -0,0 +1,42 @@
+package com.clearsolutions.controller.export;
+
+import com.clearsolutions.TestDataGenerator;
+import com.clearsolutions.config.BinaryFormatConfig;
+import com.clearsolutions.service.dto.UserDto;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BinaryUserExportWriterTest {
+
+  private final ObjectMapper cborMapper = BinaryFormatConfig.cborMapper(
+      new ObjectMapper().registerModule(new JavaTimeModule()));
+
+  @Test
+  void write_shouldWriteSequenceOfUsers_whenSeveralUsersAreWritten() throws IOException {
+    UserDto user = TestDataGenerator.generateUserDto();
+    UserDto otherUser = TestDataGenerator.generateUserDto();
+    otherUser.setEmail("other@email");
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    UserExportWriter writer = new BinaryUserExportWriter(outputStream, cborMapper);
+    writer.write(user);
+    writer.write(otherUser);
+    writer.finish();
+
+    try (MappingIterator<UserDto> users = cborMapper.readerFor(UserDto.class)
+        .readValues(outputStream.toByteArray())) {
+      List<UserDto> readUsers = users.readAll();
+      assertEquals(List.of(user.getEmail(), otherUser.getEmail()),
+                   readUsers.stream().map(UserDto::getEmail).toList());
+      assertEquals(user.getBirthdate(), readUsers.get(0).getBirthdate());
+    }
+  }
+}
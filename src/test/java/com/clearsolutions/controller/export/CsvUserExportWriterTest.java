@@ -0,0 +1,32 @@
+package com.clearsolutions.controller.export;
+
+import com.clearsolutions.TestDataGenerator;
+import com.clearsolutions.service.dto.UserDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CsvUserExportWriterTest {
+
+  @Test
+  void write_shouldQuoteFields_whenFieldsContainDelimiterOrQuote() throws IOException {
+    UserDto user = TestDataGenerator.generateUserDto();
+    user.setAddress("Kyiv, \"Main\" street");
+    user.setPhoneNumber(null);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    UserExportWriter writer = new CsvUserExportWriter(outputStream);
+    writer.write(user);
+    writer.finish();
+
+    String expectedCsv = """
+        id,email,firstName,lastName,birthdate,address,phoneNumber\r
+        ,user@email,Dennis,Ritchie,1941-09-09,"Kyiv, ""Main"" street",\r
+        """;
+    assertEquals(expectedCsv, outputStream.toString(StandardCharsets.UTF_8));
+  }
+}
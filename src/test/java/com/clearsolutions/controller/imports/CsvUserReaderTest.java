@@ -0,0 +1,35 @@
+package com.clearsolutions.controller.imports;
+
+import com.clearsolutions.service.dto.UserDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CsvUserReaderTest {
+
+  @Test
+  void next_shouldReadUsersByHeader_whenColumnsAreInAnyOrder() {
+    String csv = """
+        email,lastName,firstName,birthdate,address
+        dennis@com,Ritchie,Dennis,1941-09-09,"Murray Hill, ""Bell Labs\"""
+
+        """;
+    CsvUserReader reader = new CsvUserReader(new BufferedReader(new StringReader(csv)));
+
+    UserDto user = reader.next();
+
+    assertEquals("dennis@com", user.getEmail());
+    assertEquals("Dennis", user.getFirstName());
+    assertEquals("Ritchie", user.getLastName());
+    assertEquals(LocalDate.of(1941, 9, 9), user.getBirthdate());
+    assertEquals("Murray Hill, \"Bell Labs\"", user.getAddress());
+    assertNull(user.getPhoneNumber());
+    assertFalse(reader.hasNext());
+  }
+}
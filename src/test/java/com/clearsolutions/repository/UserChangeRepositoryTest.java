@@ -0,0 +1,95 @@
+package com.clearsolutions.repository;
+
+import com.clearsolutions.repository.entity.UserChangeType;
+import com.clearsolutions.repository.projection.UserChangeView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Sql(scripts = "/db/users-data.sql")
+public class UserChangeRepositoryTest {
+
+  private static final UUID EXISTING_USER_ID = UUID.fromString("92f226ce-f1a0-4514-9466-e811648a5218");
+  private static final UUID DELETED_USER_ID = UUID.randomUUID();
+
+  @Autowired
+  private UserChangeRepository userChangeRepository;
+
+  @Test
+  void findChanges_shouldReturnChangesInOrderWithCurrentUsers_whenChangesAreAppended() {
+    userChangeRepository.append(UserChangeType.UPDATED, List.of(EXISTING_USER_ID));
+    userChangeRepository.append(UserChangeType.DELETED, List.of(DELETED_USER_ID));
+
+    List<UserChangeView> changes = findAllChanges();
+
+    assertEquals(2, changes.size());
+    assertEquals(EXISTING_USER_ID, changes.get(0).getUser().getId());
+    assertEquals(UserChangeType.DELETED, changes.get(1).getChange().getType());
+    assertNull(changes.get(1).getUser());
+  }
+
+  @Test
+  void findChanges_shouldReturnOnlyChangesAfterCursor_whenCursorIsGiven() {
+    userChangeRepository.append(UserChangeType.UPDATED, List.of(EXISTING_USER_ID, DELETED_USER_ID));
+    long firstId = findAllChanges().get(0).getChange().getId();
+
+    List<UserChangeView> changes = userChangeRepository.findChanges(firstId, visibleNow(), Limit.of(10));
+
+    assertEquals(1, changes.size());
+    assertEquals(DELETED_USER_ID, changes.get(0).getChange().getUserId());
+  }
+
+  @Test
+  void deleteSuperseded_shouldKeepOnlyLastChangeOfUser_whenUserChangedSeveralTimes() {
+    userChangeRepository.append(UserChangeType.CREATED, List.of(EXISTING_USER_ID));
+    userChangeRepository.append(UserChangeType.UPDATED, List.of(EXISTING_USER_ID));
+
+    assertEquals(1, userChangeRepository.deleteSuperseded());
+    assertEquals(UserChangeType.UPDATED, findAllChanges().get(0).getChange().getType());
+  }
+
+  @Test
+  void advancePrunedThrough_shouldNotMoveHorizonBack_whenLowerIdIsGiven() {
+    userChangeRepository.advancePrunedThrough(10);
+    userChangeRepository.advancePrunedThrough(5);
+
+    assertEquals(10, userChangeRepository.findPrunedThrough());
+  }
+
+  @Test
+  void findLastIdByTypeBefore_shouldReturnLastDeletion_whenDeletionsOccurredBeforeTime() {
+    userChangeRepository.append(UserChangeType.DELETED, List.of(DELETED_USER_ID));
+
+    assertNotNull(userChangeRepository.findLastIdByTypeBefore(UserChangeType.DELETED, visibleNow()));
+  }
+
+  @Test
+  void findLastIdBefore_shouldIgnoreChanges_whenChangesOccurredAfterTime() {
+    userChangeRepository.append(UserChangeType.UPDATED, List.of(EXISTING_USER_ID));
+    long lastId = userChangeRepository.findLastId();
+
+    assertEquals(lastId, userChangeRepository.findLastIdBefore(visibleNow()));
+    assertTrue(userChangeRepository.findLastIdBefore(Instant.now().minus(1, ChronoUnit.MINUTES)) < lastId);
+  }
+
+  private List<UserChangeView> findAllChanges() {
+    return userChangeRepository.findChanges(0, visibleNow(), Limit.of(10));
+  }
+
+  private Instant visibleNow() {
+    return Instant.now().plus(1, ChronoUnit.MINUTES);
+  }
+}
@@ -1,17 +1,30 @@
 package com.clearsolutions.repository;
 
 import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.entity.User_;
+import com.clearsolutions.repository.projection.DeletedUser;
+import com.clearsolutions.service.dto.UserDto;
 import com.clearsolutions.service.specification.SearchFilter;
 import com.clearsolutions.service.specification.UserSpecification;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -23,12 +36,73 @@ public class UserRepositoryTest {
 
   private static final String EXISTING_EMAIL = "email@com";
   private static final String NOTE_EXISTING_EMAIL = "notExisted@com";
+  private static final String EXISTING_ID = "92f226ce-f1a0-4514-9466-e811648a5218";
+  private static final String LAST_NAME = "Kernighan";
   private static final LocalDate MAX_BIRTHDATE = LocalDate.of(1970, 1, 1);
   private static final LocalDate MIN_BIRTHDATE = LocalDate.of(1965, 1, 1);
 
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private TestEntityManager entityManager;
+
+  // the service evicts the users updated past the persistence context after the transaction,
+  // these tests call the repository directly and would leave uncommitted users in the shared cache
+  @AfterEach
+  void tearDown() {
+    entityManager.getEntityManager().getEntityManagerFactory().getCache().evictAll();
+  }
+
+  @Test
+  void deleteAllByIdReturning_shouldReturnOnlyDeletedUsers_whenSomeIdsAreNotInDb() {
+    UUID existingId = UUID.fromString("33e1b468-f030-431e-b48c-09e6d584b51c");
+
+    List<DeletedUser> deletedUsers = userRepository.deleteAllByIdReturning(List.of(existingId, UUID.randomUUID()));
+
+    assertEquals(List.of(new DeletedUser(existingId, LocalDate.of(1980, 6, 28))), deletedUsers);
+    assertFalse(userRepository.existsById(existingId));
+  }
+
+  @Test
+  void updateIfVersionReturningOld_shouldUpdateUserAndReturnPreviousUser_whenVersionMatches() {
+    UUID existingId = UUID.fromString(EXISTING_ID);
+
+    Optional<User> previousUser = userRepository.updateIfVersionReturningOld(existingId, 0,
+                                                                             Map.of(User_.LAST_NAME, LAST_NAME));
+
+    assertTrue(previousUser.isPresent());
+    assertEquals("Torvalds", previousUser.get().getLastName());
+    assertEquals(0L, previousUser.get().getVersion());
+    User updatedUser = userRepository.findById(existingId).orElseThrow();
+    assertEquals(LAST_NAME, updatedUser.getLastName());
+    assertEquals(EXISTING_EMAIL, updatedUser.getEmail());
+    assertEquals(1L, updatedUser.getVersion());
+  }
+
+  @Test
+  void updateIfVersionReturningOld_shouldNotUpdateUser_whenVersionDoesNotMatch() {
+    UUID existingId = UUID.fromString(EXISTING_ID);
+
+    Optional<User> previousUser = userRepository.updateIfVersionReturningOld(existingId, 1,
+                                                                             Map.of(User_.LAST_NAME, LAST_NAME));
+
+    assertTrue(previousUser.isEmpty());
+    assertEquals("Torvalds", userRepository.findById(existingId).orElseThrow().getLastName());
+  }
+
+  @Test
+  void findIds_shouldReturnIdsInOrderAfterGivenId_whenLimitIsLessThanMatchingUsers() {
+    Specification<User> specification = UserSpecification.getSpecification(new SearchFilter());
+
+    List<UUID> firstIds = userRepository.findIds(specification, null, 2);
+    List<UUID> nextIds = userRepository.findIds(specification, firstIds.get(1), 10);
+
+    assertEquals(2, firstIds.size());
+    assertEquals(2, nextIds.size());
+    assertTrue(firstIds.get(1).compareTo(nextIds.get(0)) < 0);
+  }
+
   @Test
   void findAll_shouldReturnUsersHavingBirthdateInsidePeriod_whenSearchFilterContainsMinAndMaxBirthdate() {
     Pageable pageable = Pageable.ofSize(10);
@@ -64,6 +138,60 @@ public class UserRepositoryTest {
     assertFalse(page.getContent().isEmpty());
   }
 
+  @Test
+  void findDtoPage_shouldReturnDtosAndTotal_whenSearchFilterContainsMinAndMaxBirthdate() {
+    Pageable pageable = Pageable.ofSize(10);
+    SearchFilter searchFilter = SearchFilter.builder()
+        .minBirthdate(MIN_BIRTHDATE)
+        .maxBirthdate(MAX_BIRTHDATE)
+        .build();
+    Specification<User> specification = UserSpecification.getSpecification(searchFilter);
+    Page<UserDto> page = userRepository.findDtoPage(specification, pageable);
+
+    assertEquals(1, page.getTotalElements());
+    assertEquals(EXISTING_EMAIL, page.getContent().get(0).getEmail());
+  }
+
+  @Test
+  void findDtoPage_shouldCountAllUsers_whenPageIsNotLast() {
+    Pageable pageable = PageRequest.of(0, 2, Sort.by("birthdate"));
+    Specification<User> specification = UserSpecification.getSpecification(new SearchFilter());
+    Page<UserDto> page = userRepository.findDtoPage(specification, pageable);
+
+    assertEquals(2, page.getContent().size());
+    assertEquals(4, page.getTotalElements());
+  }
+
+  @Test
+  void findDtoSlice_shouldReturnSliceWithNextPage_whenMoreUsersMatchThanPageSize() {
+    Pageable pageable = Pageable.ofSize(2);
+    Specification<User> specification = UserSpecification.getSpecification(new SearchFilter());
+    Slice<UserDto> slice = userRepository.findDtoSlice(specification, pageable);
+
+    assertEquals(2, slice.getContent().size());
+    assertTrue(slice.hasNext());
+  }
+
+  @Test
+  void streamAll_shouldStreamUsersInGivenOrder_whenSearchFilterContainsMinBirthdate() {
+    SearchFilter searchFilter = SearchFilter.builder().minBirthdate(MIN_BIRTHDATE).build();
+    Specification<User> specification = UserSpecification.getSpecification(searchFilter);
+    Sort sort = Sort.by(Sort.Direction.ASC, "birthdate", "id");
+
+    try (Stream<User> users = userRepository.streamAll(specification, sort)) {
+      List<LocalDate> birthdates = users.map(User::getBirthdate).toList();
+
+      assertEquals(3, birthdates.size());
+      assertEquals(birthdates.stream().sorted().toList(), birthdates);
+    }
+  }
+
+  @Test
+  void countByBirthYear_shouldReturnCountOfEveryBirthYear_whenUsersAreInDb() {
+    int expectedYearsNumber = 4;
+    assertEquals(expectedYearsNumber, userRepository.countByBirthYear().size());
+  }
+
   @Test
   void existsByEmail_shouldReturnFalse_whenNoUserWithSuchEmailInDb() {
     boolean isExist = userRepository.existsByEmail(NOTE_EXISTING_EMAIL);
@@ -77,4 +205,51 @@ public class UserRepositoryTest {
 
     assertTrue(isExist);
   }
+
+  @Test
+  void findDtoPage_shouldReturnUsersWithEmailContainingTerm_whenUsersAreIndexed() {
+    userRepository.indexAll(userRepository.findAll());
+    SearchFilter searchFilter = SearchFilter.builder().emailContains("NNIS").build();
+    Page<UserDto> page = userRepository.findDtoPage(UserSpecification.getSpecification(searchFilter),
+                                                    Pageable.ofSize(10));
+
+    assertEquals(List.of("dennis@com"), page.getContent().stream().map(UserDto::getEmail).toList());
+  }
+
+  @Test
+  void findDtoPage_shouldReturnUsersWithFirstOrLastNameStartingWithPrefix_whenPrefixIsOneCharacter() {
+    userRepository.indexAll(userRepository.findAll());
+    SearchFilter searchFilter = SearchFilter.builder().nameStartsWith("m").build();
+    Page<UserDto> page = userRepository.findDtoPage(UserSpecification.getSpecification(searchFilter),
+                                                    Pageable.ofSize(10));
+
+    assertEquals(List.of("elon@com"), page.getContent().stream().map(UserDto::getEmail).toList());
+  }
+
+  @Test
+  void findDtoPage_shouldNotReturnUsers_whenNameTrigramsAreSplitBetweenFirstAndLastNames() {
+    userRepository.indexAll(userRepository.findAll());
+    SearchFilter searchFilter = SearchFilter.builder().nameContains("linus torvalds").build();
+    Page<UserDto> page = userRepository.findDtoPage(UserSpecification.getSpecification(searchFilter),
+                                                    Pageable.ofSize(10));
+
+    assertTrue(page.isEmpty());
+  }
+
+  @Test
+  void reindex_shouldReplaceTrigrams_whenEmailIsChanged() {
+    List<User> users = userRepository.findAll();
+    userRepository.indexAll(users);
+    User user = userRepository.findById(users.get(0).getId()).orElseThrow();
+    String oldEmail = user.getEmail();
+    user.setEmail("renamed@com");
+    userRepository.saveAndFlush(user);
+    userRepository.reindex(user);
+
+    SearchFilter oldEmailFilter = SearchFilter.builder().emailStartsWith(oldEmail).build();
+    SearchFilter newEmailFilter = SearchFilter.builder().emailStartsWith("renamed").build();
+
+    assertEquals(0, userRepository.count(UserSpecification.getSpecification(oldEmailFilter)));
+    assertEquals(1, userRepository.count(UserSpecification.getSpecification(newEmailFilter)));
+  }
 }
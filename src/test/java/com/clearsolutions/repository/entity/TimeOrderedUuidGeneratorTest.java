@@ -0,0 +1,31 @@
+package com.clearsolutions.repository.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimeOrderedUuidGeneratorTest {
+
+  private static final int UUID_VERSION = 7;
+  private static final int UUID_VARIANT = 2;
+
+  @Test
+  void generateUuid_shouldReturnVersion7Uuid_whenCalled() {
+    UUID uuid = TimeOrderedUuidGenerator.generateUuid();
+
+    assertEquals(UUID_VERSION, uuid.version());
+    assertEquals(UUID_VARIANT, uuid.variant());
+  }
+
+  @Test
+  void generateUuid_shouldReturnGrowingUuids_whenGeneratedInDifferentMilliseconds() throws InterruptedException {
+    UUID first = TimeOrderedUuidGenerator.generateUuid();
+    Thread.sleep(2);
+    UUID second = TimeOrderedUuidGenerator.generateUuid();
+
+    assertTrue(first.compareTo(second) < 0);
+  }
+}
@@ -0,0 +1,85 @@
+package com.clearsolutions.repository.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReadWriteRoutingDataSourceTest {
+
+  private static final String FIRST_REPLICA = "replica-0";
+  private static final String SECOND_REPLICA = "replica-1";
+
+  @Mock
+  private ReplicaLagMonitor replicaLagMonitor;
+
+  private ReadWriteRoutingDataSource routingDataSource;
+
+  @BeforeEach
+  void setUp() {
+    routingDataSource = new ReadWriteRoutingDataSource(List.of(FIRST_REPLICA, SECOND_REPLICA), replicaLagMonitor);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    TransactionSynchronizationManager.setActualTransactionActive(false);
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void determineCurrentLookupKey_shouldReturnPrimary_whenTransactionIsNotReadOnly() {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+  }
+
+  @Test
+  void determineCurrentLookupKey_shouldAlternateReplicas_whenTransactionIsReadOnly() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(replicaLagMonitor.isWithinTolerance(FIRST_REPLICA)).thenReturn(true);
+    when(replicaLagMonitor.isWithinTolerance(SECOND_REPLICA)).thenReturn(true);
+
+    assertEquals(FIRST_REPLICA, routingDataSource.determineCurrentLookupKey());
+    assertEquals(SECOND_REPLICA, routingDataSource.determineCurrentLookupKey());
+  }
+
+  @Test
+  void determineCurrentLookupKey_shouldSkipReplica_whenItsLagExceedsTolerance() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(replicaLagMonitor.isWithinTolerance(FIRST_REPLICA)).thenReturn(false);
+    when(replicaLagMonitor.isWithinTolerance(SECOND_REPLICA)).thenReturn(true);
+
+    assertEquals(SECOND_REPLICA, routingDataSource.determineCurrentLookupKey());
+    assertEquals(SECOND_REPLICA, routingDataSource.determineCurrentLookupKey());
+  }
+
+  @Test
+  void determineCurrentLookupKey_shouldReturnPrimary_whenNoReplicaIsWithinTolerance() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+  }
+
+  @Test
+  void determineCurrentLookupKey_shouldReturnPrimaryForReads_whenRequestHasWritten() {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    routingDataSource.determineCurrentLookupKey();
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+  }
+}
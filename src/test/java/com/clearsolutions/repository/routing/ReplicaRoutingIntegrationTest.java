@@ -0,0 +1,105 @@
+package com.clearsolutions.repository.routing;
+
+import com.clearsolutions.TestDataGenerator;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.specification.SearchFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=" + ReplicaRoutingIntegrationTest.PRIMARY_URL,
+    "application.replica-routing-enabled=true",
+    "application.replica-urls=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+    "application.replica-copy-enabled=true",
+    "application.replica-copy-interval=PT1H",
+    "application.replica-lag-tolerance=PT1M"
+})
+public class ReplicaRoutingIntegrationTest {
+
+  static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary";
+  static final String REPLICA_URL = "jdbc:h2:mem:routing-replica";
+  private static final String INSERT_USER = """
+      INSERT INTO users(id, email, first_name, last_name, birthdate) VALUES (?, ?, 'Ken', 'Thompson', ?)""";
+  private static final String UPDATE_HEARTBEAT = "UPDATE replication_heartbeat SET beat = ? WHERE id = 1";
+  private static final Duration LAG_OUT_OF_TOLERANCE = Duration.ofHours(1);
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private HikariDataSource primaryDataSource;
+
+  @Autowired
+  private ReplicaLagMonitor replicaLagMonitor;
+
+  @Autowired
+  private ReplicaCopyJob replicaCopyJob;
+
+  private JdbcTemplate replica;
+
+  @BeforeEach
+  void setUp() {
+    replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    replicaCopyJob.copy();
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void findUserIds_shouldReadFromPrimary_whenReplicaLagExceedsTolerance() {
+    UUID userId = UUID.randomUUID();
+    new JdbcTemplate(primaryDataSource).update(INSERT_USER, userId, "ken@com", LocalDate.of(1943, 2, 4));
+
+    setReplicaLag(Duration.ZERO);
+    assertFalse(findAllUserIds().contains(userId));
+
+    setReplicaLag(LAG_OUT_OF_TOLERANCE);
+    assertTrue(findAllUserIds().contains(userId));
+  }
+
+  @Test
+  void findUserIds_shouldReadFromPrimary_whenRequestHasWritten() {
+    setReplicaLag(Duration.ZERO);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+    UserDto user = userService.createUser(TestDataGenerator.generateUserDto());
+
+    assertTrue(findAllUserIds().contains(user.getId()));
+
+    RequestContextHolder.resetRequestAttributes();
+
+    assertFalse(findAllUserIds().contains(user.getId()));
+  }
+
+  private void setReplicaLag(Duration lag) {
+    replica.update(UPDATE_HEARTBEAT, Timestamp.from(Instant.now().minus(lag)));
+    replicaLagMonitor.checkLags();
+  }
+
+  private List<UUID> findAllUserIds() {
+    return userService.findUserIds(new SearchFilter(), null, 100);
+  }
+}
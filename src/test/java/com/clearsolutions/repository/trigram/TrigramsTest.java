@@ -0,0 +1,39 @@
+package com.clearsolutions.repository.trigram;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramsTest {
+
+  @Test
+  void ofValue_shouldReturnAnchoredLowercaseTrigrams_whenValueIsGiven() {
+    assertEquals(Set.of("^el", "elo", "lon", "on$"), Trigrams.ofValue("Elon"));
+  }
+
+  @Test
+  void ofValue_shouldReturnOneTrigram_whenValueIsOneCharacter() {
+    assertEquals(Set.of("^a$"), Trigrams.ofValue("A"));
+  }
+
+  @Test
+  void ofPrefix_shouldReturnTrigramsContainedByIndexedValue_whenValueStartsWithPrefix() {
+    Set<String> prefixTrigrams = Trigrams.ofPrefix(Trigrams.normalize(" Elo "));
+
+    assertEquals(Set.of("^el", "elo"), prefixTrigrams);
+    assertTrue(Trigrams.ofValue("Elon").containsAll(prefixTrigrams));
+  }
+
+  @Test
+  void ofPrefix_shouldReturnNoTrigrams_whenPrefixIsOneCharacter() {
+    assertTrue(Trigrams.ofPrefix("e").isEmpty());
+  }
+
+  @Test
+  void ofTerm_shouldReturnUnanchoredTrigrams_whenTermIsGiven() {
+    assertEquals(Set.of("enn", "nni", "nis"), Trigrams.ofTerm("ennis"));
+  }
+}
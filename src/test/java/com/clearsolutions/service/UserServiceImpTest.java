@@ -2,15 +2,28 @@ package com.clearsolutions.service;
 
 import com.clearsolutions.TestDataGenerator;
 import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.exceptionhandler.exceptions.ChangeCursorExpiredException;
+import com.clearsolutions.exceptionhandler.exceptions.CursorNotValidException;
 import com.clearsolutions.exceptionhandler.exceptions.EmailNotUniqueException;
 import com.clearsolutions.exceptionhandler.exceptions.PeriodNotValidException;
+import com.clearsolutions.exceptionhandler.exceptions.PropertyNotRemovableException;
+import com.clearsolutions.exceptionhandler.exceptions.SearchTermNotValidException;
 import com.clearsolutions.exceptionhandler.exceptions.UserAgeViolationException;
 import com.clearsolutions.exceptionhandler.exceptions.UserNotFoundException;
+import com.clearsolutions.exceptionhandler.exceptions.UserVersionMismatchException;
 import com.clearsolutions.mapper.UserMapper;
+import com.clearsolutions.repository.UserChangeRepository;
 import com.clearsolutions.repository.UserRepository;
 import com.clearsolutions.repository.entity.User;
+import com.clearsolutions.repository.entity.UserChangeType;
+import com.clearsolutions.repository.projection.DeletedUser;
+import com.clearsolutions.service.cache.UserSearchCache;
+import com.clearsolutions.service.changes.UserChangeBroadcaster;
 import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.index.EmailFilter;
 import com.clearsolutions.service.specification.SearchFilter;
+import com.clearsolutions.service.statistics.BirthYearHistogram;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +32,8 @@ import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -28,16 +43,26 @@ import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -47,12 +72,18 @@ public class UserServiceImpTest {
   private static final int ONE_YEAR = 1;
   private static final int MINIMAL_AGE_IN_YEARS = 18;
   private static final String USER_MAPPER_FIELD = "userMapper";
+  private static final String EMAIL_FILTER_FIELD = "emailFilter";
+  private static final long EXPECTED_EMAILS = 100;
+  private static final double FALSE_POSITIVE_RATE = 0.01;
   private static final LocalDate MAX_BIRTHDATE = LocalDate.of(1970, 1, 1);
   private static final LocalDate MIN_BIRTHDATE = LocalDate.of(1965, 1, 1);
   private static final UUID USER_ID = UUID.randomUUID();
   private static final String BIRTHDAY_PROPERTY = "birthdate";
   private static final int PAGE_NUMBER = 1;
   private static final int PAGE_SIZE = 10;
+  private static final String LAST_NAME = "Kernighan";
+  private static final String UNIQUE_VIOLATION = "23505";
+  private static final String PREVIOUS_EMAIL = "previous@email";
 
   @InjectMocks
   private UserServiceImp userService;
@@ -66,10 +97,25 @@ public class UserServiceImpTest {
   @Mock
   Validator validator;
 
+  @Mock
+  private UserSearchCache userSearchCache;
+
+  @Mock
+  private BirthYearHistogram birthYearHistogram;
+
+  @Mock
+  private UserChangeRepository userChangeRepository;
+
+  @Mock
+  private UserChangeBroadcaster userChangeBroadcaster;
+
   @BeforeEach
   void setUp() {
     UserMapper userMapper = Mappers.getMapper(UserMapper.class);
     ReflectionTestUtils.setField(userService, USER_MAPPER_FIELD, userMapper);
+    EmailFilter emailFilter = new EmailFilter(userRepository, EXPECTED_EMAILS, FALSE_POSITIVE_RATE,
+                                              new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(userService, EMAIL_FILTER_FIELD, emailFilter);
   }
 
   @Test
@@ -81,7 +127,7 @@ public class UserServiceImpTest {
     when(appConfig.getMinimalAgeInYears()).thenReturn(MINIMAL_AGE_IN_YEARS);
     when(validator.validateProperty(any(UserDto.class), anyString())).thenReturn(new HashSet<>());
     when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(user));
-    when(userRepository.save(any(User.class))).thenReturn(user);
+    when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
 
     UserDto updatedUser = userService.updateUserPartially(userDto);
 
@@ -92,14 +138,89 @@ public class UserServiceImpTest {
   void updateUserPartially_shouldThrowEmailNotUniqueException_whenProvidedEmailIsNotUnique() {
     UserDto userDto = buildUserDtoWithValidBirthdate();
     userDto.setId(USER_ID);
+    User user = TestDataGenerator.generateUserEntity();
+    user.setEmail(PREVIOUS_EMAIL);
 
     when(appConfig.getMinimalAgeInYears()).thenReturn(MINIMAL_AGE_IN_YEARS);
     when(validator.validateProperty(any(UserDto.class), anyString())).thenReturn(new HashSet<>());
-    when(userRepository.existsByEmail(any(String.class))).thenReturn(true);
+    when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(user));
+    when(userRepository.saveAndFlush(any(User.class)))
+        .thenThrow(new DataIntegrityViolationException("unique", new SQLException("unique", UNIQUE_VIOLATION)));
 
     assertThrows(EmailNotUniqueException.class, () -> userService.updateUserPartially(userDto));
   }
 
+  @Test
+  void updateUserPartially_shouldThrowUserVersionMismatchException_whenVersionIsOutdated() {
+    UserDto userDto = UserDto.builder().id(USER_ID).lastName(LAST_NAME).version(1L).build();
+
+    when(userRepository.updateIfVersionReturningOld(eq(USER_ID), eq(1L), anyMap())).thenReturn(Optional.empty());
+    when(userRepository.existsById(USER_ID)).thenReturn(true);
+
+    assertThrows(UserVersionMismatchException.class, () -> userService.updateUserPartially(userDto));
+    verify(userRepository, never()).findById(any(UUID.class));
+    verify(userChangeRepository, never()).append(any(UserChangeType.class), any());
+  }
+
+  @Test
+  void updateUserPartially_shouldThrowUserNotFoundException_whenUserWithVersionIsNotInDb() {
+    UserDto userDto = UserDto.builder().id(USER_ID).lastName(LAST_NAME).version(1L).build();
+
+    when(userRepository.updateIfVersionReturningOld(eq(USER_ID), eq(1L), anyMap())).thenReturn(Optional.empty());
+    when(userRepository.existsById(USER_ID)).thenReturn(false);
+
+    assertThrows(UserNotFoundException.class, () -> userService.updateUserPartially(userDto));
+  }
+
+  @Test
+  void updateUserPartially_shouldUpdateWithoutReadingUser_whenVersionIsPresent() {
+    UserDto userDto = UserDto.builder().id(USER_ID).lastName(LAST_NAME).version(1L).build();
+    User previousUser = TestDataGenerator.generateUserEntity();
+    previousUser.setId(USER_ID);
+    previousUser.setVersion(1L);
+
+    when(userRepository.updateIfVersionReturningOld(USER_ID, 1L, Map.of(UserMapper.LAST_NAME_PROPERTY, LAST_NAME)))
+        .thenReturn(Optional.of(previousUser));
+
+    UserDto updatedUser = userService.updateUserPartially(userDto);
+
+    assertEquals(LAST_NAME, updatedUser.getLastName());
+    assertEquals(2L, updatedUser.getVersion());
+    verify(userRepository, never()).findById(any(UUID.class));
+    verify(userRepository).reindex(any(User.class));
+    verify(userChangeRepository).append(UserChangeType.UPDATED, List.of(USER_ID));
+  }
+
+  @Test
+  void updateUser_shouldThrowEmailNotUniqueException_whenVersionIsPresentAndEmailIsNotUnique() {
+    UserDto userDto = buildUserDtoWithValidBirthdate();
+    userDto.setId(USER_ID);
+    userDto.setVersion(1L);
+
+    when(appConfig.getMinimalAgeInYears()).thenReturn(MINIMAL_AGE_IN_YEARS);
+    when(userRepository.updateIfVersionReturningOld(eq(USER_ID), eq(1L), anyMap()))
+        .thenThrow(new DataIntegrityViolationException("unique", new SQLException("unique", UNIQUE_VIOLATION)));
+
+    assertThrows(EmailNotUniqueException.class, () -> userService.updateUser(userDto));
+  }
+
+  @Test
+  void updateUser_shouldNotRecordChange_whenNothingIsUpdated() {
+    User user = TestDataGenerator.generateUserEntity();
+    user.setVersion(0L);
+    UserDto userDto = Mappers.getMapper(UserMapper.class).toDto(user);
+    userDto.setVersion(null);
+
+    when(appConfig.getMinimalAgeInYears()).thenReturn(MINIMAL_AGE_IN_YEARS);
+    when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(user));
+    when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
+
+    userService.updateUser(userDto);
+
+    verify(userChangeRepository, never()).append(any(UserChangeType.class), any());
+    verify(userRepository, never()).reindex(any(User.class));
+  }
+
   @Test
   void updateUserPartially_shouldThrowUserAgeViolationException_whenUserAgeIsNotValid() {
     UserDto userDto = buildUserDtoWithNotValidBirthday();
@@ -116,6 +237,29 @@ public class UserServiceImpTest {
     assertThrows(UserNotFoundException.class, () -> userService.updateUserPartially(userDto));
   }
 
+  @Test
+  void updateUserPartially_shouldRemoveAddressAndKeepOtherData_whenAddressIsRemoved() {
+    UserDto userDto = UserDto.builder().id(USER_ID).build();
+    User user = TestDataGenerator.generateUserEntity();
+    String email = user.getEmail();
+
+    when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(user));
+    when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    UserDto updatedUser = userService.updateUserPartially(userDto, Set.of(UserMapper.ADDRESS_PROPERTY));
+
+    assertNull(updatedUser.getAddress());
+    assertEquals(email, updatedUser.getEmail());
+  }
+
+  @Test
+  void updateUserPartially_shouldThrowPropertyNotRemovableException_whenRequiredPropertyIsRemoved() {
+    UserDto userDto = UserDto.builder().id(USER_ID).build();
+
+    assertThrows(PropertyNotRemovableException.class,
+                 () -> userService.updateUserPartially(userDto, Set.of(BIRTHDAY_PROPERTY)));
+  }
+
   @Test
   void updateUser_shouldThrowNotFoundException_whenUserIsNotInDb() {
     UserDto userDto = buildUserDtoWithValidBirthdate();
@@ -135,27 +279,88 @@ public class UserServiceImpTest {
 
     when(appConfig.getMinimalAgeInYears()).thenReturn(MINIMAL_AGE_IN_YEARS);
     when(userRepository.findById(any(UUID.class))).thenReturn(Optional.of(user));
-    when(userRepository.save(any(User.class))).thenReturn(user);
+    when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
 
     UserDto updatedUser = userService.updateUser(userDto);
     verifyUserDto(user, updatedUser);
   }
 
   @Test
-  void deleteUserById_shouldThrowUserNotFoundException_whenUserIsNotInDb() {
+  void getUserById_shouldReturnUserWithVersion_whenUserIsInDb() {
+    User user = TestDataGenerator.generateUserEntity();
+    user.setVersion(3L);
+    when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+    UserDto userDto = userService.getUserById(user.getId());
+
+    assertEquals(user.getEmail(), userDto.getEmail());
+    assertEquals(user.getVersion(), userDto.getVersion());
+  }
+
+  @Test
+  void getUserById_shouldThrowUserNotFoundException_whenUserIsNotInDb() {
     when(userRepository.findById(USER_ID)).thenReturn(Optional.empty());
 
+    assertThrows(UserNotFoundException.class, () -> userService.getUserById(USER_ID));
+  }
+
+  @Test
+  void deleteUserById_shouldThrowUserNotFoundException_whenUserIsNotInDb() {
+    when(userRepository.deleteAllByIdReturning(List.of(USER_ID))).thenReturn(List.of());
+
     assertThrows(UserNotFoundException.class, () -> userService.deleteUserById(USER_ID));
+    verify(userChangeRepository, never()).append(any(), any());
   }
 
   @Test
   void deleteUserById_shouldDeleteUser_whenUserIsInDb() {
     User user = TestDataGenerator.generateUserEntity();
-    when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    when(userRepository.deleteAllByIdReturning(List.of(user.getId())))
+        .thenReturn(List.of(new DeletedUser(user.getId(), user.getBirthdate())));
 
     userService.deleteUserById(user.getId());
 
-    verify(userRepository).delete(user);
+    verify(userRepository, never()).findById(any());
+    verify(userRepository).unindexAll(List.of(user.getId()));
+    verify(userChangeRepository).append(UserChangeType.DELETED, List.of(user.getId()));
+    verify(userChangeBroadcaster).onChangesCommitted();
+  }
+
+  @Test
+  void deleteUsers_shouldInvalidateOncePerChunk_whenSomeUsersAreInDb() {
+    UUID deletedId = UUID.randomUUID();
+    LocalDate birthdate = LocalDate.of(1970, 1, 1);
+    when(userRepository.deleteAllByIdReturning(List.of(deletedId, USER_ID)))
+        .thenReturn(List.of(new DeletedUser(deletedId, birthdate)));
+
+    assertEquals(1, userService.deleteUsers(List.of(deletedId, USER_ID, deletedId)));
+
+    verify(userRepository).unindexAll(List.of(deletedId));
+    verify(userChangeRepository).append(UserChangeType.DELETED, List.of(deletedId));
+    verify(userSearchCache).evictCovering(List.of(birthdate));
+  }
+
+  @Test
+  void getUserChanges_shouldThrowCursorNotValidException_whenCursorIsNotNumber() {
+    assertThrows(CursorNotValidException.class, () -> userService.getUserChanges("abc", PAGE_SIZE));
+  }
+
+  @Test
+  void getUserChanges_shouldThrowChangeCursorExpiredException_whenDeletionsAfterCursorArePruned() {
+    when(appConfig.getUserChangeVisibilityDelay()).thenReturn(Duration.ZERO);
+    when(userChangeRepository.findChanges(anyLong(), any(Instant.class), any(Limit.class))).thenReturn(List.of());
+    when(userChangeRepository.findPrunedThrough()).thenReturn(10L);
+
+    assertThrows(ChangeCursorExpiredException.class, () -> userService.getUserChanges("5", PAGE_SIZE));
+  }
+
+  @Test
+  void getUserChanges_shouldReturnSameCursor_whenThereAreNoNewChanges() {
+    when(appConfig.getUserChangeVisibilityDelay()).thenReturn(Duration.ZERO);
+    when(userChangeRepository.findChanges(anyLong(), any(Instant.class), any(Limit.class))).thenReturn(List.of());
+    when(userChangeRepository.findPrunedThrough()).thenReturn(10L);
+
+    assertEquals("15", userService.getUserChanges("15", PAGE_SIZE).getNextCursor());
   }
 
   @Test
@@ -166,6 +371,14 @@ public class UserServiceImpTest {
     assertThrows(PeriodNotValidException.class, () -> userService.searchUsers(searchFilter, pageable));
   }
 
+  @Test
+  void searchUsers_shouldThrowSearchTermNotValidException_whenContainsTermIsShorterThanTrigram() {
+    SearchFilter searchFilter = SearchFilter.builder().nameContains(" ab ").build();
+    Pageable pageable = Pageable.unpaged();
+
+    assertThrows(SearchTermNotValidException.class, () -> userService.searchUsers(searchFilter, pageable));
+  }
+
   private SearchFilter buildFilterWithNotValidBirthdayPeriod() {
     return SearchFilter.builder()
         .maxBirthdate(MIN_BIRTHDATE)
@@ -177,11 +390,11 @@ public class UserServiceImpTest {
     SearchFilter filterWithValidBirthdayPeriod = buildFilterWithValidBirthdayPeriod();
     Pageable pageable = Pageable.ofSize(PAGE_SIZE);
     User user = TestDataGenerator.generateUserEntity();
-    Page<User> page = new PageImpl<>(List.of(user));
+    Page<UserDto> page = new PageImpl<>(List.of(Mappers.getMapper(UserMapper.class).toDto(user)));
 
     when(appConfig.getUserSortBy()).thenReturn(BIRTHDAY_PROPERTY);
     when(appConfig.getUserSortDirection()).thenReturn(Direction.DESC);
-    when(userRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
+    when(userRepository.findDtoPage(any(Specification.class), any(Pageable.class))).thenReturn(page);
 
     Page<UserDto> recievedPage = userService.searchUsers(filterWithValidBirthdayPeriod, pageable);
     UserDto receivedUser = recievedPage.getContent().get(0);
@@ -194,9 +407,9 @@ public class UserServiceImpTest {
     SearchFilter emptySearchFilter = new SearchFilter();
     Pageable pageable = generateSortedPageRequest();
     User user = TestDataGenerator.generateUserEntity();
-    Page<User> page = new PageImpl<>(List.of(user));
+    Page<UserDto> page = new PageImpl<>(List.of(Mappers.getMapper(UserMapper.class).toDto(user)));
 
-    when(userRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
+    when(userRepository.findDtoPage(any(Specification.class), any(Pageable.class))).thenReturn(page);
 
     Page<UserDto> foundPage = userService.searchUsers(emptySearchFilter, pageable);
     UserDto foundUser = foundPage.getContent().get(0);
@@ -209,9 +422,9 @@ public class UserServiceImpTest {
     SearchFilter filterWithValidBirthdayPeriod = buildFilterWithValidBirthdayPeriod();
     Pageable pageable = generateSortedPageRequest();
     User user = TestDataGenerator.generateUserEntity();
-    Page<User> page = new PageImpl<>(List.of(user));
+    Page<UserDto> page = new PageImpl<>(List.of(Mappers.getMapper(UserMapper.class).toDto(user)));
 
-    when(userRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
+    when(userRepository.findDtoPage(any(Specification.class), any(Pageable.class))).thenReturn(page);
 
     Page<UserDto> recievedPage = userService.searchUsers(filterWithValidBirthdayPeriod, pageable);
     UserDto receivedUser = recievedPage.getContent().get(0);
@@ -219,6 +432,15 @@ public class UserServiceImpTest {
     verifyUserDto(user, receivedUser);
   }
 
+  @Test
+  void scrollUsers_shouldThrowCursorNotValidException_whenCursorIsMalformed() {
+    SearchFilter emptySearchFilter = new SearchFilter();
+    String malformedCursor = "not-a-cursor";
+
+    assertThrows(CursorNotValidException.class,
+                 () -> userService.scrollUsers(emptySearchFilter, malformedCursor, PAGE_SIZE));
+  }
+
   private SearchFilter buildFilterWithValidBirthdayPeriod() {
     return SearchFilter.builder()
         .minBirthdate(MIN_BIRTHDATE)
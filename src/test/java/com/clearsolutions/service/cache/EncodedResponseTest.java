@@ -0,0 +1,47 @@
+package com.clearsolutions.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedResponseTest {
+
+  private static final int GZIP_MIN_SIZE = 64;
+
+  @Test
+  void of_shouldGzipBody_whenBodyIsNotSmallerThanMinSize() throws IOException {
+    byte[] body = "{\"content\":[]}".repeat(20).getBytes(StandardCharsets.UTF_8);
+
+    EncodedResponse response = EncodedResponse.of(body, GZIP_MIN_SIZE);
+
+    assertTrue(response.isGzipped());
+    try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response.getGzippedBody()))) {
+      assertArrayEquals(body, inputStream.readAllBytes());
+    }
+  }
+
+  @Test
+  void of_shouldNotGzipBody_whenBodyIsSmallerThanMinSize() {
+    byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+    assertFalse(EncodedResponse.of(body, GZIP_MIN_SIZE).isGzipped());
+  }
+
+  @Test
+  void of_shouldReturnSameETagForSameBodyAndOtherETagForGzippedVariant() {
+    byte[] body = "{\"content\":[]}".getBytes(StandardCharsets.UTF_8);
+    EncodedResponse response = EncodedResponse.of(body, GZIP_MIN_SIZE);
+
+    assertEquals(response.getETag(), EncodedResponse.of(body.clone(), GZIP_MIN_SIZE).getETag());
+    assertNotEquals(response.getETag(), response.getGzippedETag());
+  }
+}
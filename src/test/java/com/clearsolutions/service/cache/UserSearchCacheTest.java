@@ -0,0 +1,74 @@
+package com.clearsolutions.service.cache;
+
+import com.clearsolutions.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class UserSearchCacheTest {
+
+  private static final LocalDate MIN_BIRTHDATE = LocalDate.of(1965, 1, 1);
+  private static final LocalDate MAX_BIRTHDATE = LocalDate.of(1970, 1, 1);
+  private static final Pageable PAGEABLE = Pageable.ofSize(10);
+  private static final String PAGE = "page";
+  private static final EncodedResponse RESPONSE = EncodedResponse.of(new byte[] {1}, 1024);
+
+  private UserSearchCache userSearchCache;
+  private Cache cache;
+
+  @BeforeEach
+  void setUp() {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager(UserSearchCache.USERS_CACHE);
+    cache = cacheManager.getCache(UserSearchCache.USERS_CACHE);
+    AppConfig appConfig = new AppConfig();
+    appConfig.setSearchCoalescingTimeout(Duration.ofSeconds(1));
+    userSearchCache = new UserSearchCache(cacheManager, new UserSearchCoalescer(appConfig, new SimpleMeterRegistry()));
+  }
+
+  @Test
+  void evictCovering_shouldEvictOnlyOverlappingEntries_whenBirthdateIsInsideOneRange() {
+    UserSearchKey rangeKey = new UserSearchKey(MIN_BIRTHDATE, MAX_BIRTHDATE, PAGEABLE);
+    UserSearchKey otherRangeKey = new UserSearchKey(MAX_BIRTHDATE, null, PAGEABLE);
+    UserSearchKey unboundedKey = new UserSearchKey(null, null, PAGEABLE);
+    cache.put(rangeKey, PAGE);
+    cache.put(otherRangeKey, PAGE);
+    cache.put(unboundedKey, PAGE);
+
+    userSearchCache.evictCovering(MIN_BIRTHDATE.plusYears(1));
+
+    assertNull(cache.get(rangeKey));
+    assertNull(cache.get(unboundedKey));
+    assertNotNull(cache.get(otherRangeKey));
+  }
+
+  @Test
+  void putIfUnchanged_shouldCachePage_whenUsersHaveNotChangedSinceSearchStarted() {
+    UserSearchKey key = new UserSearchKey(MIN_BIRTHDATE, MAX_BIRTHDATE, PAGEABLE);
+    long generation = userSearchCache.currentGeneration();
+
+    userSearchCache.putIfUnchanged(key, RESPONSE, generation);
+
+    assertSame(RESPONSE, userSearchCache.get(key));
+  }
+
+  @Test
+  void putIfUnchanged_shouldNotCachePage_whenUsersHaveChangedSinceSearchStarted() {
+    UserSearchKey key = new UserSearchKey(MIN_BIRTHDATE, MAX_BIRTHDATE, PAGEABLE);
+    long generation = userSearchCache.currentGeneration();
+
+    userSearchCache.evictCovering(MIN_BIRTHDATE.plusYears(1));
+    userSearchCache.putIfUnchanged(key, RESPONSE, generation);
+
+    assertNull(userSearchCache.get(key));
+  }
+}
@@ -0,0 +1,147 @@
+package com.clearsolutions.service.cache;
+
+import com.clearsolutions.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserSearchCoalescerTest {
+
+  private static final UserSearchKey KEY = new UserSearchKey(LocalDate.of(1965, 1, 1), LocalDate.of(1970, 1, 1),
+                                                             Pageable.ofSize(10));
+  private static final EncodedResponse RESPONSE = EncodedResponse.of(new byte[] {1, 2, 3}, 1024);
+  private static final String COALESCED_METRIC = "users.search.coalesced";
+  private static final String TIMEOUTS_METRIC = "users.search.coalescing.timeouts";
+
+  private SimpleMeterRegistry meterRegistry;
+  private AppConfig appConfig;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    appConfig = new AppConfig();
+    appConfig.setSearchCoalescingTimeout(Duration.ofSeconds(5));
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void execute_shouldSearchOnce_whenIdenticalSearchIsInFlight() throws Exception {
+    UserSearchCoalescer coalescer = new UserSearchCoalescer(appConfig, meterRegistry);
+    CountDownLatch searchStarted = new CountDownLatch(1);
+    CountDownLatch searchReleased = new CountDownLatch(1);
+    AtomicInteger searches = new AtomicInteger();
+
+    Future<EncodedResponse> leader = executor.submit(() -> coalescer.execute(KEY, () -> {
+      searches.incrementAndGet();
+      searchStarted.countDown();
+      await(searchReleased);
+      return RESPONSE;
+    }));
+    assertTrue(searchStarted.await(5, TimeUnit.SECONDS));
+    Future<EncodedResponse> follower = executor.submit(() -> coalescer.execute(KEY, () -> {
+      searches.incrementAndGet();
+      return RESPONSE;
+    }));
+    awaitCoalesced(1);
+    searchReleased.countDown();
+
+    assertSame(RESPONSE, leader.get(5, TimeUnit.SECONDS));
+    assertSame(RESPONSE, follower.get(5, TimeUnit.SECONDS));
+    assertEquals(1, searches.get());
+  }
+
+  @Test
+  void execute_shouldSearchAgain_whenCoalescedSearchTimesOut() throws Exception {
+    appConfig.setSearchCoalescingTimeout(Duration.ofMillis(10));
+    UserSearchCoalescer coalescer = new UserSearchCoalescer(appConfig, meterRegistry);
+    CountDownLatch searchStarted = new CountDownLatch(1);
+    CountDownLatch searchReleased = new CountDownLatch(1);
+
+    Future<EncodedResponse> leader = executor.submit(() -> coalescer.execute(KEY, () -> {
+      searchStarted.countDown();
+      await(searchReleased);
+      return RESPONSE;
+    }));
+    assertTrue(searchStarted.await(5, TimeUnit.SECONDS));
+
+    EncodedResponse ownResponse = EncodedResponse.of(new byte[] {4}, 1024);
+    assertSame(ownResponse, coalescer.execute(KEY, () -> ownResponse));
+    assertEquals(1, meterRegistry.counter(TIMEOUTS_METRIC).count());
+
+    searchReleased.countDown();
+    leader.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void execute_shouldRethrowFailure_whenSearchFails() {
+    UserSearchCoalescer coalescer = new UserSearchCoalescer(appConfig, meterRegistry);
+
+    assertThrows(IllegalArgumentException.class, () -> coalescer.execute(KEY, () -> {
+      throw new IllegalArgumentException();
+    }));
+    assertSame(RESPONSE, coalescer.execute(KEY, () -> RESPONSE));
+  }
+
+  @Test
+  void detachCovering_shouldStartNewSearch_whenChangedUserIsCovered() throws Exception {
+    UserSearchCoalescer coalescer = new UserSearchCoalescer(appConfig, meterRegistry);
+    CountDownLatch searchStarted = new CountDownLatch(1);
+    CountDownLatch searchReleased = new CountDownLatch(1);
+
+    Future<EncodedResponse> leader = executor.submit(() -> coalescer.execute(KEY, () -> {
+      searchStarted.countDown();
+      await(searchReleased);
+      return RESPONSE;
+    }));
+    assertTrue(searchStarted.await(5, TimeUnit.SECONDS));
+
+    coalescer.detachCovering(new TreeSet<>(List.of(LocalDate.of(1966, 1, 1))));
+    EncodedResponse newResponse = EncodedResponse.of(new byte[] {5}, 1024);
+
+    assertSame(newResponse, coalescer.execute(KEY, () -> newResponse));
+    assertEquals(0, meterRegistry.counter(COALESCED_METRIC).count());
+
+    searchReleased.countDown();
+    leader.get(5, TimeUnit.SECONDS);
+  }
+
+  private void awaitCoalesced(int expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+    while (meterRegistry.counter(COALESCED_METRIC).count() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
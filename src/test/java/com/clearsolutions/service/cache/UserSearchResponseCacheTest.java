@@ -0,0 +1,115 @@
+package com.clearsolutions.service.cache;
+
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.UserDto;
+import com.clearsolutions.service.specification.SearchFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserSearchResponseCacheTest {
+
+  private static final Pageable PAGEABLE = PageRequest.of(0, 10);
+  private static final Page<UserDto> PAGE = new PageImpl<>(List.of(), PAGEABLE, 0);
+  private static final SearchFilter SEARCH_FILTER = SearchFilter.builder()
+      .minBirthdate(LocalDate.of(1965, 1, 1))
+      .maxBirthdate(LocalDate.of(1970, 1, 1))
+      .build();
+  private static final LocalDate CHANGED_BIRTHDATE = LocalDate.of(1966, 1, 1);
+  private static final String COALESCED_METRIC = "users.search.coalesced";
+
+  private UserService userService;
+  private UserSearchCache userSearchCache;
+  private SimpleMeterRegistry meterRegistry;
+  private UserSearchResponseCache userSearchResponseCache;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    userService = mock(UserService.class);
+    meterRegistry = new SimpleMeterRegistry();
+    AppConfig appConfig = new AppConfig();
+    appConfig.setSearchCoalescingTimeout(Duration.ofSeconds(5));
+    appConfig.setSearchResponseGzipMinSize(1024);
+    UserSearchCoalescer coalescer = new UserSearchCoalescer(appConfig, meterRegistry);
+    userSearchCache = new UserSearchCache(new CaffeineCacheManager(UserSearchCache.USERS_CACHE), coalescer);
+    userSearchResponseCache = new UserSearchResponseCache(userService, userSearchCache, coalescer,
+                                                          new ObjectMapper(), appConfig);
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void searchUsers_shouldServeCachedPage_whenUsersHaveNotChanged() {
+    when(userService.searchUsers(any(SearchFilter.class), any(Pageable.class))).thenReturn(PAGE);
+
+    EncodedResponse response = userSearchResponseCache.searchUsers(SEARCH_FILTER, PAGEABLE, MediaType.APPLICATION_JSON);
+
+    assertSame(response, userSearchResponseCache.searchUsers(SEARCH_FILTER, PAGEABLE, MediaType.APPLICATION_JSON));
+    verify(userService, times(1)).searchUsers(any(SearchFilter.class), any(Pageable.class));
+  }
+
+  @Test
+  void searchUsers_shouldNotCachePageOfCoalescedSearch_whenUsersChangeDuringSearch() throws Exception {
+    CountDownLatch searchStarted = new CountDownLatch(1);
+    CountDownLatch searchReleased = new CountDownLatch(1);
+    when(userService.searchUsers(any(SearchFilter.class), any(Pageable.class))).thenAnswer(invocation -> {
+      searchStarted.countDown();
+      searchReleased.await(5, TimeUnit.SECONDS);
+      return PAGE;
+    });
+
+    Future<EncodedResponse> leader = executor.submit(
+        () -> userSearchResponseCache.searchUsers(SEARCH_FILTER, PAGEABLE, MediaType.APPLICATION_JSON));
+    assertTrue(searchStarted.await(5, TimeUnit.SECONDS));
+    Future<EncodedResponse> follower = executor.submit(
+        () -> userSearchResponseCache.searchUsers(SEARCH_FILTER, PAGEABLE, MediaType.APPLICATION_JSON));
+    awaitCoalesced();
+    userSearchCache.evictCovering(CHANGED_BIRTHDATE);
+    searchReleased.countDown();
+
+    assertNotNull(leader.get(5, TimeUnit.SECONDS));
+    assertNotNull(follower.get(5, TimeUnit.SECONDS));
+    assertNull(userSearchCache.get(UserSearchKey.of(SEARCH_FILTER, PAGEABLE, MediaType.APPLICATION_JSON)));
+  }
+
+  private void awaitCoalesced() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+    while (meterRegistry.counter(COALESCED_METRIC).count() < 1 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+}
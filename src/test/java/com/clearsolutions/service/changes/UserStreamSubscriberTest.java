@@ -0,0 +1,87 @@
+package com.clearsolutions.service.changes;
+
+import com.clearsolutions.repository.entity.UserChangeType;
+import com.clearsolutions.service.dto.UserChangeDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserStreamSubscriberTest {
+
+  private static final int BUFFER_SIZE = 2;
+
+  @Test
+  void hasPending_shouldReturnFalse_whenSubscriberIsReplaying() {
+    UserStreamSubscriber subscriber = new UserStreamSubscriber(new SseEmitter(), BUFFER_SIZE, 0);
+    subscriber.offer(buildChange(1));
+
+    assertFalse(subscriber.hasPending());
+
+    subscriber.finishReplay();
+
+    assertTrue(subscriber.hasPending());
+  }
+
+  @Test
+  void offer_shouldMarkOverflowAndDropBufferedChanges_whenBufferIsFull() {
+    UserStreamSubscriber subscriber = new UserStreamSubscriber(new SseEmitter(), BUFFER_SIZE, 0);
+
+    for (long id = 1; id <= BUFFER_SIZE + 1; id++) {
+      subscriber.offer(buildChange(id));
+    }
+
+    assertTrue(subscriber.isOverflowed());
+    assertNull(subscriber.poll());
+  }
+
+  @Test
+  void poll_shouldReturnChangesInOfferedOrder_whenBufferIsNotFull() {
+    UserStreamSubscriber subscriber = new UserStreamSubscriber(new SseEmitter(), BUFFER_SIZE, 0);
+    subscriber.offer(buildChange(1));
+    subscriber.offer(buildChange(2));
+
+    assertEquals(1, subscriber.poll().getId());
+    assertEquals(2, subscriber.poll().getId());
+    assertFalse(subscriber.isOverflowed());
+  }
+
+  @Test
+  void claim_shouldSucceedOnce_untilSubscriberIsReleased() {
+    UserStreamSubscriber subscriber = new UserStreamSubscriber(new SseEmitter(), BUFFER_SIZE, 0);
+
+    assertTrue(subscriber.claim());
+    assertFalse(subscriber.claim());
+
+    subscriber.release();
+
+    assertTrue(subscriber.claim());
+  }
+
+  @Test
+  void isSendingLongerThan_shouldReturnTrue_onlyWhileSendIsBlockedLongerThanTimeout() throws InterruptedException {
+    UserStreamSubscriber subscriber = new UserStreamSubscriber(new SseEmitter(), BUFFER_SIZE, 0);
+
+    assertFalse(subscriber.isSendingLongerThan(Duration.ZERO));
+
+    subscriber.startSending();
+    Thread.sleep(1);
+
+    assertTrue(subscriber.isSendingLongerThan(Duration.ZERO));
+    assertFalse(subscriber.isSendingLongerThan(Duration.ofMinutes(1)));
+
+    subscriber.finishSending();
+
+    assertFalse(subscriber.isSendingLongerThan(Duration.ZERO));
+  }
+
+  private UserChangeDto buildChange(long id) {
+    return new UserChangeDto(id, UserChangeType.UPDATED, UUID.randomUUID(), null);
+  }
+}
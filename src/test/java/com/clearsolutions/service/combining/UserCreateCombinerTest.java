@@ -0,0 +1,149 @@
+package com.clearsolutions.service.combining;
+
+import com.clearsolutions.TestDataGenerator;
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.exceptionhandler.exceptions.EmailNotUniqueException;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.BatchItemResult;
+import com.clearsolutions.service.dto.BatchResult;
+import com.clearsolutions.service.dto.UserDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserCreateCombinerTest {
+
+  private static final int BATCH_SIZE = 3;
+  private static final String BATCH_SIZE_METRIC = "users.create.batch.size";
+
+  private UserService userService;
+  private AppConfig appConfig;
+  private SimpleMeterRegistry meterRegistry;
+  private ExecutorService executor;
+  private UserCreateCombiner combiner;
+
+  @BeforeEach
+  void setUp() {
+    userService = mock(UserService.class);
+    meterRegistry = new SimpleMeterRegistry();
+    appConfig = new AppConfig();
+    appConfig.setUserCreateCombiningEnabled(true);
+    appConfig.setUserCreateCombiningWindow(Duration.ofSeconds(1));
+    appConfig.setUserCreateCombiningTimeout(Duration.ofSeconds(5));
+    appConfig.setUserCreateCombiningBatchSize(BATCH_SIZE);
+    appConfig.setUserCreateCombiningQueueSize(100);
+    appConfig.setMaxUserBatchSize(10000);
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    executor.shutdownNow();
+
+    if (combiner != null) {
+      combiner.shutdown();
+    }
+  }
+
+  @Test
+  void createUser_shouldCreateConcurrentUsersInOneBatch() throws Exception {
+    when(userService.createUsers(anyList())).thenAnswer(invocation -> {
+      List<UserDto> users = invocation.getArgument(0);
+      return BatchResult.of(IntStream.range(0, users.size())
+                                .mapToObj(index -> BatchItemResult.created(index, UUID.randomUUID()))
+                                .toList());
+    });
+    combiner = new UserCreateCombiner(userService, appConfig, meterRegistry);
+    List<Future<UserDto>> results = new ArrayList<>();
+
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      UserDto userDto = TestDataGenerator.generateUserDto();
+      results.add(executor.submit(() -> combiner.createUser(userDto)));
+    }
+    Set<UUID> ids = new HashSet<>();
+
+    for (Future<UserDto> result : results) {
+      ids.add(result.get(5, TimeUnit.SECONDS).getId());
+    }
+
+    assertEquals(BATCH_SIZE, ids.size());
+    verify(userService, times(1)).createUsers(anyList());
+    verify(userService, never()).createUser(any(UserDto.class));
+    assertEquals(1, meterRegistry.summary(BATCH_SIZE_METRIC).count());
+  }
+
+  @Test
+  void createUser_shouldThrowErrorOfUserCreatedAlone_whenUserIsRejectedInBatch() {
+    appConfig.setUserCreateCombiningBatchSize(1);
+    UserDto userDto = TestDataGenerator.generateUserDto();
+
+    when(userService.createUsers(anyList()))
+        .thenReturn(BatchResult.of(List.of(BatchItemResult.failed(0, "User with email already exists"))));
+    when(userService.createUser(userDto)).thenThrow(new EmailNotUniqueException(userDto.getEmail()));
+    combiner = new UserCreateCombiner(userService, appConfig, meterRegistry);
+
+    assertThrows(EmailNotUniqueException.class, () -> combiner.createUser(userDto));
+  }
+
+  @Test
+  void createUser_shouldCreateUserDirectly_whenCombinerHasStopped() throws InterruptedException {
+    UserDto userDto = TestDataGenerator.generateUserDto();
+    UserDto createdUser = TestDataGenerator.generateUserDto();
+
+    when(userService.createUser(userDto)).thenReturn(createdUser);
+    combiner = new UserCreateCombiner(userService, appConfig, meterRegistry);
+    combiner.shutdown();
+
+    assertSame(createdUser, combiner.createUser(userDto));
+    verify(userService, never()).createUsers(anyList());
+  }
+
+  @Test
+  void createUser_shouldCompleteBatch_whenBatchFailsWithError() {
+    appConfig.setUserCreateCombiningBatchSize(1);
+    UserDto userDto = TestDataGenerator.generateUserDto();
+
+    when(userService.createUsers(anyList())).thenThrow(new OutOfMemoryError());
+    when(userService.createUser(userDto)).thenThrow(new OutOfMemoryError());
+    combiner = new UserCreateCombiner(userService, appConfig, meterRegistry);
+
+    assertThrows(IllegalStateException.class, () -> combiner.createUser(userDto));
+  }
+
+  @Test
+  void createUser_shouldCreateUserDirectly_whenCombiningIsDisabled() {
+    appConfig.setUserCreateCombiningEnabled(false);
+    UserDto userDto = TestDataGenerator.generateUserDto();
+    UserDto createdUser = TestDataGenerator.generateUserDto();
+
+    when(userService.createUser(userDto)).thenReturn(createdUser);
+    combiner = new UserCreateCombiner(userService, appConfig, meterRegistry);
+
+    assertSame(createdUser, combiner.createUser(userDto));
+    verify(userService, never()).createUsers(anyList());
+  }
+}
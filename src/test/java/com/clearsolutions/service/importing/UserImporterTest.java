@@ -0,0 +1,107 @@
+package com.clearsolutions.service.importing;
+
+import com.clearsolutions.TestDataGenerator;
+import com.clearsolutions.config.AppConfig;
+import com.clearsolutions.service.UserService;
+import com.clearsolutions.service.dto.BatchItemResult;
+import com.clearsolutions.service.dto.BatchResult;
+import com.clearsolutions.service.dto.ImportProgress;
+import com.clearsolutions.service.dto.UserDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserImporterTest {
+
+  private static final int CHUNK_SIZE = 2;
+  private static final int USERS_NUMBER = 5;
+
+  @Mock
+  private UserService userService;
+
+  @Mock
+  private AppConfig appConfig;
+
+  private UserImporter userImporter;
+
+  @BeforeEach
+  void setUp() {
+    when(appConfig.getMaxConcurrentUserImports()).thenReturn(1);
+    when(appConfig.getUserImportQueueCapacity()).thenReturn(1);
+    userImporter = new UserImporter(userService, appConfig, new MockEnvironment());
+  }
+
+  @AfterEach
+  void tearDown() {
+    userImporter.shutdown();
+  }
+
+  @Test
+  void importUsers_shouldCreateUsersChunkByChunk_whenUsersAreValid() {
+    when(appConfig.getUserImportChunkSize()).thenReturn(CHUNK_SIZE);
+    when(userService.createUsers(anyList())).thenAnswer(invocation -> createdBatch(invocation.getArgument(0)));
+    List<ImportProgress> progresses = new ArrayList<>();
+
+    userImporter.importUsers(generateUsers().iterator(), progresses::add);
+
+    verify(userService, times(3)).createUsers(anyList());
+    assertEquals(3, progresses.size());
+    assertEquals(USERS_NUMBER, progresses.get(2).getProcessed());
+    assertNull(progresses.get(2).getError());
+  }
+
+  @Test
+  void importUsers_shouldReportAbortedImport_whenUsersCannotBeRead() {
+    when(appConfig.getUserImportChunkSize()).thenReturn(CHUNK_SIZE);
+    Iterator<UserDto> brokenUsers = new Iterator<>() {
+
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public UserDto next() {
+        throw new IllegalArgumentException("Line 1: the birthdate 1941-13-01 is not valid");
+      }
+    };
+    List<ImportProgress> progresses = new ArrayList<>();
+
+    userImporter.importUsers(brokenUsers, progresses::add);
+
+    assertEquals(1, progresses.size());
+    assertNotNull(progresses.get(0).getError());
+  }
+
+  private List<UserDto> generateUsers() {
+    return IntStream.range(0, USERS_NUMBER)
+        .mapToObj(i -> TestDataGenerator.generateUserDto())
+        .toList();
+  }
+
+  private BatchResult createdBatch(List<UserDto> users) {
+    List<BatchItemResult> items = IntStream.range(0, users.size())
+        .mapToObj(i -> BatchItemResult.created(i, UUID.randomUUID()))
+        .toList();
+    return BatchResult.of(items);
+  }
+}
@@ -0,0 +1,86 @@
+package com.clearsolutions.service.index;
+
+import com.clearsolutions.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailFilterTest {
+
+  private static final long EXPECTED_EMAILS = 10_000;
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+  private static final String EXISTING_EMAIL = "email@com";
+  private static final String NEW_EMAIL = "new@com";
+  private static final String FALSE_POSITIVES_METRIC = "users.email.filter.false.positives";
+
+  @Mock
+  private UserRepository userRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+  private EmailFilter emailFilter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    emailFilter = new EmailFilter(userRepository, EXPECTED_EMAILS, FALSE_POSITIVE_RATE, meterRegistry);
+  }
+
+  @Test
+  void mightContain_shouldReturnTrue_whenFilterIsNotLoaded() {
+    assertTrue(emailFilter.mightContain(NEW_EMAIL));
+  }
+
+  @Test
+  void mightContain_shouldReturnTrueForLoadedAndPutEmails_whenFilterIsLoaded() {
+    when(userRepository.streamAllEmails()).thenReturn(Stream.of(EXISTING_EMAIL));
+    emailFilter.load();
+    emailFilter.put(NEW_EMAIL);
+
+    assertTrue(emailFilter.mightContain(EXISTING_EMAIL));
+    assertTrue(emailFilter.mightContain(" Email@COM "));
+    assertTrue(emailFilter.mightContain(NEW_EMAIL));
+  }
+
+  @Test
+  void mightContain_shouldRuleOutMostAbsentEmails_whenFilterIsFull() {
+    when(userRepository.streamAllEmails())
+        .thenReturn(IntStream.range(0, (int) EXPECTED_EMAILS).mapToObj(i -> "user" + i + "@com"));
+    emailFilter.load();
+
+    long falsePositives = IntStream.range(0, (int) EXPECTED_EMAILS)
+        .filter(i -> emailFilter.mightContain("absent" + i + "@com"))
+        .count();
+
+    assertTrue(falsePositives < EXPECTED_EMAILS * FALSE_POSITIVE_RATE * 2);
+  }
+
+  @Test
+  void contains_shouldNotCallLookup_whenEmailIsDefinitelyAbsent() {
+    when(userRepository.streamAllEmails()).thenReturn(Stream.of(EXISTING_EMAIL));
+    emailFilter.load();
+
+    assertFalse(emailFilter.contains(NEW_EMAIL, email -> fail("The database must not be probed")));
+  }
+
+  @Test
+  void contains_shouldCountFalsePositive_whenLookupDoesNotFindEmail() {
+    when(userRepository.streamAllEmails()).thenReturn(Stream.of(EXISTING_EMAIL));
+    emailFilter.load();
+
+    assertFalse(emailFilter.contains(EXISTING_EMAIL, email -> false));
+    assertEquals(1, meterRegistry.counter(FALSE_POSITIVES_METRIC).count());
+  }
+}
@@ -0,0 +1,74 @@
+package com.clearsolutions.service.statistics;
+
+import com.clearsolutions.repository.UserRepository;
+import com.clearsolutions.repository.projection.BirthYearCount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BirthYearHistogramTest {
+
+  private static final int FIRST_YEAR = 1970;
+  private static final int SECOND_YEAR = 1971;
+  private static final long USERS_PER_YEAR = 365;
+
+  @InjectMocks
+  private BirthYearHistogram birthYearHistogram;
+
+  @Mock
+  private UserRepository userRepository;
+
+  @BeforeEach
+  void setUp() {
+    when(userRepository.countByBirthYear()).thenReturn(List.of(
+        buildBirthYearCount(FIRST_YEAR),
+        buildBirthYearCount(SECOND_YEAR)));
+    birthYearHistogram.load();
+  }
+
+  private BirthYearCount buildBirthYearCount(int year) {
+    return new BirthYearCount() {
+
+      @Override
+      public Integer getYear() {
+        return year;
+      }
+
+      @Override
+      public Long getCount() {
+        return USERS_PER_YEAR;
+      }
+    };
+  }
+
+  @Test
+  void estimate_shouldReturnAllUsers_whenRangeIsOpen() {
+    assertEquals(2 * USERS_PER_YEAR, birthYearHistogram.estimate(null, null));
+  }
+
+  @Test
+  void estimate_shouldProrateBoundaryYears_whenRangeCoversPartsOfYears() {
+    LocalDate minBirthdate = LocalDate.of(FIRST_YEAR, 12, 2);
+    LocalDate maxBirthdate = LocalDate.of(SECOND_YEAR, 1, 30);
+
+    assertEquals(60, birthYearHistogram.estimate(minBirthdate, maxBirthdate));
+  }
+
+  @Test
+  void update_shouldMoveUserBetweenYears_whenBirthdateIsChanged() {
+    birthYearHistogram.update(LocalDate.of(FIRST_YEAR, 1, 1), LocalDate.of(SECOND_YEAR, 1, 1));
+
+    LocalDate endOfFirstYear = LocalDate.of(FIRST_YEAR, 12, 31);
+    assertEquals(USERS_PER_YEAR - 1, birthYearHistogram.estimate(null, endOfFirstYear));
+  }
+}
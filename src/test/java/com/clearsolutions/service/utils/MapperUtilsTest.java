@@ -4,19 +4,19 @@ import com.clearsolutions.TestDataGenerator;
 import com.clearsolutions.service.dto.UserDto;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class MapperUtilsTest {
 
-  private static final int PROPERTIES_QUANTITY_WITH_NULL = 1;
-  private static final String PROPERTY_NAME = "id";
+  private static final List<String> PROPERTY_NAMES = List.of("id", "version");
 
   @Test
   void definePropertiesWithNullValues_shouldReturnPropertyNames_whenPropertiesAreNull() {
     UserDto user = TestDataGenerator.generateUserDto();
     String[] properties = MapperUtils.definePropertiesWithNullValues(user);
 
-    assertEquals(PROPERTIES_QUANTITY_WITH_NULL, properties.length);
-    assertEquals(PROPERTY_NAME, properties[0]);
+    assertEquals(PROPERTY_NAMES, List.of(properties));
   }
 }